@@ -0,0 +1,153 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.capabilities;
+
+import java.lang.ref.WeakReference;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import mcp.MethodsReturnNonnullByDefault;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.common.util.NonNullConsumer;
+
+/**
+ * Caches the result of looking up a capability on the block entity at a fixed position.
+ *
+ * Meant for pipes, cables and other blocks that query the same neighbour every tick. Create
+ * one instance per (position, side, capability) and call {@link #get()} instead of
+ * {@code world.getBlockEntity(pos).getCapability(cap, side)}.
+ *
+ * A non-empty result is kept until the returned {@link LazyOptional} is invalidated, or the block
+ * entity it came from is removed or unloaded with its chunk. Empty results are never cached, as
+ * providers are not required to announce a capability becoming available.
+ *
+ * The invalidation listener only holds this cache weakly, so a cache, and whatever holds it, can be
+ * collected while the neighbour it points at lives on.
+ */
+@ParametersAreNonnullByDefault
+@MethodsReturnNonnullByDefault
+public final class BlockCapabilityCache<T>
+{
+    private final Capability<T> capability;
+    private final World world;
+    private final BlockPos pos;
+    private final @Nullable Direction side;
+    private final NonNullConsumer<LazyOptional<T>> listener = new WeakListener<>(this);
+
+    private @Nullable BlockEntity blockEntity;
+    private LazyOptional<T> cached = LazyOptional.empty();
+
+    public static <T> BlockCapabilityCache<T> create(Capability<T> capability, World world, BlockPos pos, @Nullable Direction side)
+    {
+        return new BlockCapabilityCache<>(capability, world, pos, side);
+    }
+
+    private BlockCapabilityCache(Capability<T> capability, World world, BlockPos pos, @Nullable Direction side)
+    {
+        this.capability = capability;
+        this.world = world;
+        this.pos = pos.toImmutable();
+        this.side = side;
+    }
+
+    /**
+     * @return The capability at the cached position, resolving it again only if the previous result is no longer valid.
+     */
+    public LazyOptional<T> get()
+    {
+        final BlockEntity be = this.blockEntity;
+        if (be != null && !be.isRemoved() && this.cached.isPresent())
+            return this.cached;
+        return resolve();
+    }
+
+    /**
+     * @return The block entity the result of the last {@link #get()} came from, null if that was empty.
+     */
+    @Nullable
+    public BlockEntity getBlockEntity()
+    {
+        return this.blockEntity;
+    }
+
+    /**
+     * Drops the cached result, the next {@link #get()} looks the capability up again.
+     */
+    public void invalidate()
+    {
+        this.blockEntity = null;
+        this.cached = LazyOptional.empty();
+    }
+
+    public Capability<T> getCapability() { return capability; }
+    public World getWorld() { return world; }
+    public BlockPos getPos() { return pos; }
+    @Nullable
+    public Direction getSide() { return side; }
+
+    private LazyOptional<T> resolve()
+    {
+        invalidate();
+        if (!world.getBlockState(pos).hasTileEntity())
+            return this.cached;
+
+        final BlockEntity be = world.getBlockEntity(pos);
+        if (be == null || be.isRemoved())
+            return this.cached;
+
+        final LazyOptional<T> ret = be.getCapability(capability, side);
+        if (ret.isPresent())
+        {
+            this.blockEntity = be;
+            this.cached = ret;
+            ret.addListener(listener); // The listener is shared, so re-resolving the same optional never stacks listeners
+        }
+        return ret;
+    }
+
+    private void onInvalidated(LazyOptional<T> optional)
+    {
+        if (optional == this.cached)
+            invalidate();
+    }
+
+    private static final class WeakListener<T> implements NonNullConsumer<LazyOptional<T>>
+    {
+        private final WeakReference<BlockCapabilityCache<T>> cache;
+
+        private WeakListener(BlockCapabilityCache<T> cache)
+        {
+            this.cache = new WeakReference<>(cache);
+        }
+
+        @Override
+        public void accept(LazyOptional<T> optional)
+        {
+            final BlockCapabilityCache<T> cache = this.cache.get();
+            if (cache != null)
+                cache.onInvalidated(optional);
+        }
+    }
+}
@@ -89,6 +89,13 @@ public class Capability<T>
      */
     public String getName() { return name; }
 
+    /**
+     * @return A dense, runtime-only index assigned to this capability by the {@link CapabilityManager}.
+     * Ids are assigned in registration order starting at zero, and are NOT stable across launches,
+     * so they must never be saved or sent over the network.
+     */
+    public int getId() { return id; }
+
     /**
      * @return An instance of the default storage handler. You can safely use this store your default implementation in NBT.
      */
@@ -145,10 +152,12 @@ public class Capability<T>
     private final String name;
     private final IStorage<T> storage;
     private final Callable<? extends T> factory;
+    private final int id;
 
-    Capability(String name, IStorage<T> storage, Callable<? extends T> factory)
+    Capability(String name, IStorage<T> storage, Callable<? extends T> factory, int id)
     {
         this.name = name;
+        this.id = id;
         this.storage = storage;
         this.factory = factory;
     }
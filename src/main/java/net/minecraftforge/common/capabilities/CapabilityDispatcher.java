@@ -22,6 +22,8 @@ package net.minecraftforge.common.capabilities;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -32,8 +34,12 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.Direction;
+import net.minecraftforge.common.util.INBTComparable;
+import net.minecraftforge.common.util.INBTDirtyTracking;
 import net.minecraftforge.common.util.INBTSerializable;
+import net.minecraftforge.common.util.INBTSnapshotSerializable;
 import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.server.timings.CapabilityTracker;
 
 /**
  * A high-speed implementation of a capability delegator.
@@ -44,14 +50,21 @@ import net.minecraftforge.common.util.LazyOptional;
  *
  * Internally the handlers are baked into arrays for fast iteration.
  * The ResourceLocations will be used for the NBT Key when serializing.
+ *
+ * If any of the providers implement {@link IDeclaredCapabilityProvider} the handlers
+ * are additionally indexed by {@link Capability#getId()}, so that a lookup skips every
+ * declared provider that can never answer it.
  */
 @ParametersAreNonnullByDefault
 @MethodsReturnNonnullByDefault
 public final class CapabilityDispatcher implements INBTSerializable<CompoundTag>, ICapabilityProvider
 {
     private ICapabilityProvider[] caps;
+    private @Nullable ICapabilityProvider[][] index;
+    private ICapabilityProvider[] undeclared;
     private INBTSerializable<Tag>[] writers;
     private String[] names;
+    private @Nullable Tag[] savedTags; // Last tags of INBTDirtyTracking writers, created on first save
     private final List<Runnable> listeners;
 
     public CapabilityDispatcher(Map<Identifier, ICapabilityProvider> list, List<Runnable> listeners)
@@ -91,15 +104,76 @@ public final class CapabilityDispatcher implements INBTSerializable<CompoundTag>
         caps = lstCaps.toArray(new ICapabilityProvider[lstCaps.size()]);
         writers = lstWriters.toArray(new INBTSerializable[lstWriters.size()]);
         names = lstNames.toArray(new String[lstNames.size()]);
+        buildIndex();
+    }
+
+    private void buildIndex()
+    {
+        undeclared = Arrays.stream(caps).filter(c -> !(c instanceof IDeclaredCapabilityProvider)).toArray(ICapabilityProvider[]::new);
+        if (undeclared.length == caps.length)
+            return; // Nothing declared, the linear scan is already optimal.
+
+        BitSet declared = new BitSet();
+        for (ICapabilityProvider prov : caps)
+        {
+            if (prov instanceof IDeclaredCapabilityProvider)
+            {
+                for (Capability<?> cap : ((IDeclaredCapabilityProvider)prov).getDeclaredCapabilities())
+                {
+                    if (cap != null) // Capabilities that were never registered are injected as null
+                        declared.set(cap.getId());
+                }
+            }
+        }
+
+        index = new ICapabilityProvider[declared.length()][];
+        for (int id = 0; id < index.length; id++)
+        {
+            // Slots nobody declared share the undeclared array instead of allocating their own.
+            index[id] = declared.get(id) ? buildSlot(id) : undeclared;
+        }
     }
 
+    private ICapabilityProvider[] buildSlot(int id)
+    {
+        List<ICapabilityProvider> lst = Lists.newArrayList();
+        for (ICapabilityProvider prov : caps)
+        {
+            if (!(prov instanceof IDeclaredCapabilityProvider) || declares((IDeclaredCapabilityProvider)prov, id))
+                lst.add(prov);
+        }
+        return lst.toArray(new ICapabilityProvider[lst.size()]);
+    }
+
+    private static boolean declares(IDeclaredCapabilityProvider prov, int id)
+    {
+        for (Capability<?> cap : prov.getDeclaredCapabilities())
+        {
+            if (cap != null && cap.getId() == id)
+                return true;
+        }
+        return false;
+    }
+
+    private ICapabilityProvider[] getProviders(Capability<?> cap)
+    {
+        final ICapabilityProvider[][] index = this.index;
+        if (index == null)
+            return caps;
+        final int id = cap.getId();
+        return id < index.length ? index[id] : undeclared;
+    }
 
     @Override
     public <T> LazyOptional<T> getCapability(Capability<T> cap, @Nullable Direction side)
     {
-        for (ICapabilityProvider c : caps)
+        //noinspection ConstantConditions
+        if (cap == null) // Un-injected @CapabilityInject fields are null, nobody can provide them
+            return LazyOptional.empty();
+        final boolean track = CapabilityTracker.isEnabled();
+        for (ICapabilityProvider c : getProviders(cap))
         {
-            LazyOptional<T> ret = c.getCapability(cap, side);
+            LazyOptional<T> ret = track ? CapabilityTracker.trackProvider(c, cap, side) : c.getCapability(cap, side);
             //noinspection ConstantConditions
             if (ret == null)
             {
@@ -124,11 +198,50 @@ public final class CapabilityDispatcher implements INBTSerializable<CompoundTag>
         CompoundTag nbt = new CompoundTag();
         for (int x = 0; x < writers.length; x++)
         {
-            nbt.put(names[x], writers[x].serializeNBT());
+            if (writers[x] instanceof INBTDirtyTracking)
+                nbt.put(names[x], serializeTracked(x));
+            else
+                nbt.put(names[x], writers[x].serializeNBT());
         }
         return nbt;
     }
 
+    /**
+     * Like {@link #serializeNBT()}, but writers implementing {@link INBTSnapshotSerializable} are only
+     * snapshotted here. Their NBT is built from the snapshot when the returned tag is first used, usually
+     * when it is written out on another thread.
+     */
+    public CompoundTag serializeNBTSnapshot()
+    {
+        CompoundTag nbt = new CompoundTag();
+        for (int x = 0; x < writers.length; x++)
+        {
+            if (writers[x] instanceof INBTSnapshotSerializable)
+                nbt.put(names[x], new SnapshotCompoundTag(((INBTSnapshotSerializable)writers[x]).snapshotNBT()));
+            else if (writers[x] instanceof INBTDirtyTracking)
+                nbt.put(names[x], serializeTracked(x));
+            else
+                nbt.put(names[x], writers[x].serializeNBT());
+        }
+        return nbt;
+    }
+
+    private Tag serializeTracked(int x)
+    {
+        if (savedTags == null)
+            savedTags = new Tag[writers.length];
+
+        final INBTDirtyTracking tracked = (INBTDirtyTracking)writers[x];
+        Tag tag = savedTags[x];
+        if (tag == null || tracked.isDirty())
+        {
+            tag = writers[x].serializeNBT();
+            tracked.clearDirty();
+            savedTags[x] = tag;
+        }
+        return tag.copy(); // The caller owns what we return, keep our saved tag untouched
+    }
+
     @Override
     public void deserializeNBT(CompoundTag nbt)
     {
@@ -137,6 +250,8 @@ public final class CapabilityDispatcher implements INBTSerializable<CompoundTag>
             if (nbt.contains(names[x]))
             {
                 writers[x].deserializeNBT(nbt.get(names[x]));
+                if (savedTags != null)
+                    savedTags[x] = null;
             }
         }
     }
@@ -145,7 +260,28 @@ public final class CapabilityDispatcher implements INBTSerializable<CompoundTag>
     {                                                        // Only compares serializeable caps.
         if (other == null) return this.writers.length == 0;  // Done this way so we can do some pre-checks before doing the costly NBT serialization and compare
         if (this.writers.length == 0) return other.writers.length == 0;
-        return this.serializeNBT().equals(other.serializeNBT());
+        if (!Arrays.equals(this.names, other.names)) return this.serializeNBT().equals(other.serializeNBT());
+
+        for (int x = 0; x < writers.length; x++)
+        {
+            if (!areCompatible(writers[x], other.writers[x]))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean areCompatible(INBTSerializable<Tag> a, INBTSerializable<Tag> b)
+    {
+        if (a instanceof INBTComparable && a.getClass() == b.getClass())
+        {
+            final INBTComparable ca = (INBTComparable)a;
+            final INBTComparable cb = (INBTComparable)b;
+            if (ca.getContentHash() != cb.getContentHash())
+                return false;
+            if (ca == cb || ca.contentEquals(cb))
+                return true;
+        }
+        return a.serializeNBT().equals(b.serializeNBT());
     }
 
     public void invalidate()
@@ -19,6 +19,9 @@
 
 package net.minecraftforge.common.capabilities;
 
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -27,6 +30,7 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.util.math.Direction;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.event.ForgeEventFactory;
+import net.minecraftforge.server.timings.CapabilityTracker;
 
 @MethodsReturnNonnullByDefault
 @ParametersAreNonnullByDefault
@@ -36,25 +40,116 @@ public abstract class CapabilityProvider<B extends CapabilityProvider<B>> implem
     private @Nullable CapabilityDispatcher capabilities;
     private boolean valid = true;
 
+    private final boolean isLazy;
+    // The lazy state only changes while holding the lock on this provider. It is volatile so that
+    // providers that already gathered their capabilities never need to take the lock.
+    private volatile boolean initialized = false;
+    private volatile boolean deferred = false;
+    private boolean gathering = false;
+    private @Nullable Function<CompoundTag, ICapabilityProvider> lazyParent = null;
+    private volatile @Nullable CompoundTag lazyData = null;
+
     protected CapabilityProvider(Class<B> baseClass)
+    {
+        this(baseClass, false);
+    }
+
+    /**
+     * @param isLazy If true, the capabilities are not gathered until they are first needed, which may be on
+     *               another thread. Both the parent provider and the AttachCapabilitiesEvent are deferred until
+     *               then. Any data passed to {@link #deserializeCaps(CompoundTag)} before then is held on to and
+     *               applied once they are gathered. Pending data may be shared with copies of this provider,
+     *               so it is never modified and only a copy of it is ever applied.
+     */
+    protected CapabilityProvider(Class<B> baseClass, boolean isLazy)
     {
         this.baseClass = baseClass;
+        this.isLazy = isLazy;
     }
 
-    protected final void gatherCapabilities() { gatherCapabilities(null); }
+    protected final void gatherCapabilities() { gatherCapabilities((ICapabilityProvider)null); }
 
     protected final void gatherCapabilities(@Nullable ICapabilityProvider parent)
+    {
+        gatherCapabilities(parent == null ? null : () -> parent);
+    }
+
+    protected final void gatherCapabilities(@Nullable Supplier<ICapabilityProvider> parent)
+    {
+        gatherCapabilitiesWithData(parent == null ? null : data -> parent.get());
+    }
+
+    /**
+     * Like {@link #gatherCapabilities(Supplier)}, but a deferred parent also receives the pending data, the same
+     * private copy of it that is then applied to the gathered capabilities. Saves a second copy for parents that
+     * read that data themselves. The parent receives null if there is no pending data, or if the capabilities
+     * are gathered right away.
+     */
+    protected final void gatherCapabilitiesWithData(@Nullable Function<CompoundTag, ICapabilityProvider> parent)
+    {
+        if (isLazy && !initialized)
+        {
+            synchronized (this)
+            {
+                if (!initialized)
+                {
+                    this.lazyParent = parent;
+                    this.deferred = true;
+                    return;
+                }
+            }
+        }
+        doGatherCapabilities(parent == null ? null : parent.apply(null));
+    }
+
+    private void doGatherCapabilities(@Nullable ICapabilityProvider parent)
     {
         this.capabilities = ForgeEventFactory.gatherCapabilities(baseClass, this, parent);
+        this.initialized = true;
     }
 
     protected final @Nullable CapabilityDispatcher getCapabilities()
     {
+        if (deferred)
+            gatherDeferred();
         return this.capabilities;
     }
 
+    private synchronized void gatherDeferred()
+    {
+        // Another thread got here first, or a listener or the parent asked for the capabilities while they are gathered
+        if (!deferred || gathering)
+            return;
+        gathering = true;
+        try
+        {
+            final Function<CompoundTag, ICapabilityProvider> parent = this.lazyParent;
+            // Copies may share the pending data, never hand it out to be read into
+            final CompoundTag data = this.lazyData == null ? null : this.lazyData.copy();
+            this.lazyParent = null;
+            this.lazyData = null;
+            doGatherCapabilities(parent == null ? null : parent.apply(data));
+            // Applied directly, as deserializeCaps would come back here while this is still deferred
+            final CapabilityDispatcher disp = this.capabilities;
+            if (disp != null && data != null)
+                disp.deserializeNBT(data);
+        }
+        finally
+        {
+            gathering = false;
+            // Only now, so other threads never see the capabilities before the pending data was applied
+            this.deferred = false;
+        }
+    }
+
     public final boolean areCapsCompatible(CapabilityProvider<B> other)
     {
+        // Two providers that were never gathered and hold the very same pending data, such as a copy and
+        // its source, end up identical once gathered, so there is no need to gather them just to compare.
+        // Without pending data their attached defaults decide, and those can differ, so gather those.
+        final CompoundTag data = this.lazyData;
+        if (isLazy && !initialized && other.isLazy && !other.initialized && data != null && data == other.lazyData)
+            return true;
         return areCapsCompatible(other.getCapabilities());
     }
 
@@ -80,6 +175,15 @@ public abstract class CapabilityProvider<B extends CapabilityProvider<B>> implem
 
     protected final @Nullable CompoundTag serializeCaps()
     {
+        if (isLazy && !initialized)
+        {
+            synchronized (this)
+            {
+                // Nothing can have touched the capabilities yet, so the pending data is still current.
+                if (!initialized)
+                    return lazyData == null ? null : lazyData.copy();
+            }
+        }
         final CapabilityDispatcher disp = getCapabilities();
         if (disp != null)
         {
@@ -88,8 +192,79 @@ public abstract class CapabilityProvider<B extends CapabilityProvider<B>> implem
         return null;
     }
 
+    /**
+     * Like {@link #serializeCaps()}, but capabilities that support it are only snapshotted, and encoded
+     * once the returned tag is written out. See {@link CapabilityDispatcher#serializeNBTSnapshot()}.
+     */
+    protected final @Nullable CompoundTag serializeCapsSnapshot()
+    {
+        if (isLazy && !initialized)
+        {
+            // Falls through to a normal snapshot if this was gathered in the meantime
+            return serializeCaps();
+        }
+        final CapabilityDispatcher disp = getCapabilities();
+        if (disp != null)
+        {
+            return disp.serializeNBTSnapshot();
+        }
+        return null;
+    }
+
+    /**
+     * Serializes the capabilities for a copy of this provider, which must receive the result through
+     * {@link #deserializeSharedCaps(CompoundTag)}.
+     *
+     * If nothing has been gathered yet, the pending data is shared with the copy instead of being
+     * copied. Either side only pays for the copy once it actually gathers its capabilities. The copy
+     * must not hand the returned tag to anything that may modify or retain it.
+     */
+    protected final @Nullable CompoundTag serializeCapsForCopy()
+    {
+        if (isLazy && !initialized)
+        {
+            synchronized (this)
+            {
+                if (!initialized)
+                    return lazyData;
+            }
+        }
+        return serializeCaps();
+    }
+
+    /**
+     * Like {@link #deserializeCaps(CompoundTag)}, for data that may be shared with other providers, such as
+     * the result of {@link #serializeCapsForCopy()}. The tag is never modified, only a copy of it is applied.
+     */
+    protected final void deserializeSharedCaps(CompoundTag tag)
+    {
+        if (isLazy && !initialized)
+        {
+            synchronized (this)
+            {
+                if (!initialized)
+                {
+                    this.lazyData = tag;
+                    return;
+                }
+            }
+        }
+        deserializeCaps(tag.copy());
+    }
+
     protected final void deserializeCaps(CompoundTag tag)
     {
+        if (isLazy && !initialized)
+        {
+            synchronized (this)
+            {
+                if (!initialized)
+                {
+                    this.lazyData = tag;
+                    return;
+                }
+            }
+        }
         final CapabilityDispatcher disp = getCapabilities();
         if (disp != null)
         {
@@ -100,7 +275,7 @@ public abstract class CapabilityProvider<B extends CapabilityProvider<B>> implem
     protected void invalidateCaps()
     {
         this.valid = false;
-        final CapabilityDispatcher disp = getCapabilities();
+        final CapabilityDispatcher disp = this.capabilities; // Never gather lazy capabilities just to invalidate them
         if (disp != null)
             disp.invalidate();
     }
@@ -114,7 +289,12 @@ public abstract class CapabilityProvider<B extends CapabilityProvider<B>> implem
     @Nonnull
     public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side)
     {
+        if (!valid)
+            return LazyOptional.empty();
         final CapabilityDispatcher disp = getCapabilities();
-        return !valid || disp == null ? LazyOptional.empty() : disp.getCapability(cap, side);
+        final LazyOptional<T> ret = disp == null ? LazyOptional.empty() : disp.getCapability(cap, side);
+        if (CapabilityTracker.isEnabled())
+            CapabilityTracker.recordLookup(cap, ret.isPresent());
+        return ret;
     }
 }
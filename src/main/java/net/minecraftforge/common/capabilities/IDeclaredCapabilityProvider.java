@@ -0,0 +1,43 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.capabilities;
+
+import java.util.Collection;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link ICapabilityProvider} that declares, up front, every capability it may ever expose.
+ *
+ * When attached through the AttachCapabilitiesEvent, the {@link CapabilityDispatcher} uses this
+ * declaration to index providers by {@link Capability#getId()}, so a lookup only visits providers
+ * that can actually answer it instead of scanning every attached provider.
+ *
+ * The declaration must be complete: {@link #getCapability(Capability, net.minecraft.util.math.Direction)}
+ * will never be called for a capability that is not part of it. It is read once when the dispatcher is
+ * built, so it must not change afterwards.
+ */
+public interface IDeclaredCapabilityProvider extends ICapabilityProvider
+{
+    /**
+     * @return Every capability this provider may return a non-empty result for, on any side.
+     */
+    @Nonnull Collection<Capability<?>> getDeclaredCapabilities();
+}
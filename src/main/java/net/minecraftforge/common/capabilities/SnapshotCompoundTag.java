@@ -0,0 +1,82 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.capabilities;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ForwardingMap;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stand-in for the tag of an {@link net.minecraftforge.common.util.INBTSnapshotSerializable} capability,
+ * encoded from its snapshot only once the tag is first used.
+ *
+ * Every access goes through the backing map, so writing or copying it on the chunk IO worker, as well as
+ * reading it from a ChunkDataEvent.Save listener, sees the real contents. Whichever comes first encodes it.
+ */
+final class SnapshotCompoundTag extends CompoundTag
+{
+    SnapshotCompoundTag(Supplier<CompoundTag> snapshot)
+    {
+        super(new SnapshotMap(snapshot));
+    }
+
+    private static final class SnapshotMap extends ForwardingMap<String, Tag>
+    {
+        private static final Logger LOGGER = LogManager.getLogger();
+
+        private Supplier<CompoundTag> snapshot;
+        private Map<String, Tag> resolved;
+
+        private SnapshotMap(Supplier<CompoundTag> snapshot)
+        {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        protected synchronized Map<String, Tag> delegate()
+        {
+            if (resolved == null)
+            {
+                resolved = new HashMap<>();
+                try
+                {
+                    final CompoundTag tag = snapshot.get();
+                    for (String key : tag.getKeys())
+                        resolved.put(key, tag.get(key));
+                }
+                catch (Exception e)
+                {
+                    // Thrown away from the save that captured it, so it can only cost this capability its data.
+                    LOGGER.error("A capability snapshot has thrown an exception trying to write state. It will not persist. Report this to the mod author", e);
+                    resolved.clear();
+                }
+                snapshot = null;
+            }
+            return resolved;
+        }
+    }
+}
@@ -710,6 +710,9 @@ public interface IForgeItem
      * This is called BEFORE the stacks item is set so you can use stack.getItem()
      * to see the OLD item. Remember that getItem CAN return null.
      *
+     * This is only called once the stack's capabilities are first used, which may be
+     * later and on another thread.
+     *
      * @param stack The ItemStack
      * @param nbt   NBT of this item serialized, or null.
      * @return A holder instance associated with this ItemStack where you can hold
@@ -0,0 +1,44 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.util;
+
+/**
+ * Optional companion to {@link INBTSerializable} that lets two instances be compared
+ * without serializing them, for example when ItemStacks compare their capabilities.
+ *
+ * {@link #getContentHash()} must return equal values for any two instances whose
+ * serialized NBT would be equal. A version counter or a hash kept up to date on
+ * every change are both fine. Instances with different hashes are treated as different
+ * without further checks, so a stale hash is a bug.
+ */
+public interface INBTComparable
+{
+    int getContentHash();
+
+    /**
+     * Only called when both instances are of the same class and report the same hash.
+     *
+     * @return True if the contents are known to be equal, false to fall back to comparing serialized NBT.
+     */
+    default boolean contentEquals(INBTComparable other)
+    {
+        return false;
+    }
+}
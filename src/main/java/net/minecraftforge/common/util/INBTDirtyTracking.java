@@ -0,0 +1,41 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.util;
+
+/**
+ * Optional companion to {@link INBTSerializable} for data that rarely changes.
+ *
+ * When a capability implements this, the owning CapabilityDispatcher keeps the tag from
+ * the last save and reuses it for as long as {@link #isDirty()} returns false, instead of
+ * calling {@link INBTSerializable#serializeNBT()} again. Every change to the serialized
+ * state must mark the instance dirty, otherwise the change is never saved.
+ */
+public interface INBTDirtyTracking
+{
+    /**
+     * @return True if the serialized state may have changed since the last {@link #clearDirty()}.
+     */
+    boolean isDirty();
+
+    /**
+     * Called right after the state has been serialized.
+     */
+    void clearDirty();
+}
@@ -0,0 +1,43 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.util;
+
+import java.util.function.Supplier;
+
+import net.minecraft.nbt.CompoundTag;
+
+/**
+ * An {@link INBTSerializable} whose state can be captured cheaply, and encoded later on another thread.
+ *
+ * Chunk capabilities implementing this are only snapshotted while the chunk is saved on the
+ * server thread. The NBT is built from the snapshot when the chunk IO worker writes the chunk,
+ * or earlier if something else reads the chunk tag first, so heavy capability data no longer
+ * stalls saves. Everything else keeps using {@link #serializeNBT()}.
+ */
+public interface INBTSnapshotSerializable extends INBTSerializable<CompoundTag>
+{
+    /**
+     * Called on the thread that owns this object.
+     *
+     * @return A supplier that produces exactly what {@link #serializeNBT()} would return right now. It may be
+     *         called from any thread at any later time, so it must not read this object's mutable state.
+     */
+    Supplier<CompoundTag> snapshotNBT();
+}
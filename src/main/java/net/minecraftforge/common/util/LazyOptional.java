@@ -23,7 +23,6 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -57,11 +56,15 @@ import net.minecraftforge.common.capabilities.Capability;
 public class LazyOptional<T>
 {
     private final NonNullSupplier<T> supplier;
-    private AtomicReference<T> resolved;
-    private Set<NonNullConsumer<LazyOptional<T>>> listeners = new HashSet<>();
+    // Null until resolved, NULL_RESULT if the supplier broke its contract. Most optionals are
+    // resolved by a single thread, volatile is enough to publish the value to any others.
+    private volatile Object resolved;
+    // Most optionals never get a listener, so the set is only created by the first addListener call.
+    private @Nullable Set<NonNullConsumer<LazyOptional<T>>> listeners;
     private boolean isValid = true;
 
     private static final @Nonnull LazyOptional<Void> EMPTY = new LazyOptional<>(null);
+    private static final Object NULL_RESULT = new Object();
     private static final Logger LOGGER = LogManager.getLogger();
 
     /**
@@ -103,24 +106,26 @@ public class LazyOptional<T>
         this.supplier = instanceSupplier;
     }
 
+    @SuppressWarnings("unchecked")
     private @Nullable T getValue()
     {
         if (!isValid)
             return null;
-        if (resolved != null)
-            return resolved.get();
+        final Object ret = resolved;
+        if (ret != null)
+            return ret == NULL_RESULT ? null : (T)ret;
 
         if (supplier != null)
         {
-            resolved = new AtomicReference<>(null);
+            resolved = NULL_RESULT; // Never ask a broken supplier twice
             T temp = supplier.get();
             if (temp == null)
             {
                 LOGGER.catching(Level.WARN, new NullPointerException("Supplier should not return null value"));
                 return null;
             }
-            resolved.set(temp);
-            return resolved.get();
+            resolved = temp;
+            return temp;
         }
         return null;
     }
@@ -301,6 +306,8 @@ public class LazyOptional<T>
     {
         if (isPresent())
         {
+            if (this.listeners == null)
+                this.listeners = new HashSet<>();
             this.listeners.add(listener);
         }
         else
@@ -328,7 +335,11 @@ public class LazyOptional<T>
         if (this.isValid)
         {
             this.isValid = false;
-            this.listeners.forEach(e -> e.accept(this));
+            if (this.listeners != null)
+            {
+                for (NonNullConsumer<LazyOptional<T>> listener : this.listeners)
+                    listener.accept(this);
+            }
         }
     }
 }
@@ -74,12 +74,8 @@ public final class RegistryObject<T extends IForgeRegistryEntry<? super T>> impl
 			throw new IllegalArgumentException("Invalid registry argument, must not be null");
 		}
 		this.name = name;
-		ObjectHolderRegistry.addHandler(pred ->
-		{
-			if (pred.test(registry.getRegistryName())) {
-				this.value = registry.containsKey(this.name) ? (T) registry.getValue(this.name) : null;
-			}
-		});
+		// Bound straight to the registry's holder group, so rebinding after a bake or snapshot load is one field write
+		ObjectHolderRegistry.addHandler(registry.getRegistryName(), () -> this.value = registry.containsKey(this.name) ? (T) registry.getValue(this.name) : null);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -112,7 +108,9 @@ public final class RegistryObject<T extends IForgeRegistryEntry<? super T>> impl
 	@Nonnull
 	public T get() {
 		T ret = this.value;
-		Objects.requireNonNull(ret, () -> "Registry Object not present: " + this.name);
+		if (ret == null) {
+			throw new NullPointerException("Registry Object not present: " + this.name);
+		}
 		return ret;
 	}
 
@@ -120,6 +118,15 @@ public final class RegistryObject<T extends IForgeRegistryEntry<? super T>> impl
 		this.value = registry.getValue(getId());
 	}
 
+	/**
+	 * Points this object at a value that is about to be registered under its name, so that later entries of the same
+	 * {@link net.minecraftforge.registries.DeferredRegister} can use it while they are built. The value is replaced
+	 * by the registry's once the batch is registered.
+	 */
+	public void updatePendingReference(T value) {
+		this.value = value;
+	}
+
 	public Identifier getId() {
 		return this.name;
 	}
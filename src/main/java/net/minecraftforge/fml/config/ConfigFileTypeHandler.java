@@ -110,6 +110,7 @@ public class ConfigFileTypeHandler {
 					throw new ConfigLoadingException(modConfig, ex);
 				}
 				LOGGER.debug(CONFIG, "Config file {} changed, sending notifies", this.modConfig.getFileName());
+				ConfigTracker.INSTANCE.invalidateSyncData(this.modConfig);
 				this.modConfig.fireEvent(new ModConfig.Reloading(this.modConfig));
 			}
 		}
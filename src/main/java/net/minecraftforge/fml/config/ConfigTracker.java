@@ -21,6 +21,7 @@ package net.minecraftforge.fml.config;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -53,6 +54,7 @@ public class ConfigTracker {
 	private final ConcurrentHashMap<String, ModConfig> fileMap;
 	private final EnumMap<ModConfig.Type, Set<ModConfig>> configSets;
 	private final ConcurrentHashMap<String, Map<ModConfig.Type, ModConfig>> configsByMod;
+	private final ConcurrentHashMap<String, FMLHandshakeMessages.S2CConfigData> syncCache = new ConcurrentHashMap<>();
 
 	private ConfigTracker() {
 		this.fileMap = new ConcurrentHashMap<>();
@@ -83,17 +85,46 @@ public class ConfigTracker {
 	public void unloadConfigs(ModConfig.Type type, Path configBasePath) {
 		LOGGER.debug(CONFIG, "Unloading configs type {}", type);
 		this.configSets.get(type).forEach(config -> closeConfig(config, configBasePath));
+		if (type == ModConfig.Type.SERVER) {
+			this.syncCache.clear();
+		}
 	}
 
 	public List<Pair<String, FMLHandshakeMessages.S2CConfigData>> syncConfigs(boolean isLocal) {
-		final Map<String, byte[]> configData = configSets.get(ModConfig.Type.SERVER).stream().collect(Collectors.toMap(ModConfig::getFileName, mc -> { //TODO: Test cpw's LambdaExceptionUtils on Oracle javac.
+		final Map<String, FMLHandshakeMessages.S2CConfigData> configData = configSets.get(ModConfig.Type.SERVER).stream().collect(Collectors.toMap(ModConfig::getFileName, mc -> { //TODO: Test cpw's LambdaExceptionUtils on Oracle javac.
 			try {
-				return Files.readAllBytes(mc.getFullPath());
+				return syncData(mc);
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
 		}));
-		return configData.entrySet().stream().map(e -> Pair.of("Config " + e.getKey(), new FMLHandshakeMessages.S2CConfigData(e.getKey(), e.getValue()))).collect(Collectors.toList());
+		return configData.entrySet().stream().map(e -> Pair.of("Config " + e.getKey(), e.getValue())).collect(Collectors.toList());
+	}
+
+	/**
+	 * The message built for an earlier login, and its encoding, is reused until {@link #invalidateSyncData(ModConfig)}
+	 * reports that the config was loaded, saved or reloaded since.
+	 */
+	private FMLHandshakeMessages.S2CConfigData syncData(final ModConfig config) throws IOException {
+		try {
+			// computeIfAbsent holds the entry while the file is read, so an invalidation can't be lost to a stale put
+			return syncCache.computeIfAbsent(config.getFileName(), fileName -> {
+				try {
+					return new FMLHandshakeMessages.S2CConfigData(fileName, Files.readAllBytes(config.getFullPath()));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Drop the sync message cached for the config, after its file may have changed.
+	 */
+	void invalidateSyncData(final ModConfig config) {
+		syncCache.remove(config.getFileName());
 	}
 
 	private void openConfig(final ModConfig config, final Path configBasePath) {
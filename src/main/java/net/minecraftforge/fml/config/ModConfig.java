@@ -84,6 +84,7 @@ public class ModConfig {
 	void setConfigData(final CommentedConfig configData) {
 		this.configData = configData;
 		this.spec.setConfig(this.configData);
+		ConfigTracker.INSTANCE.invalidateSyncData(this);
 	}
 
 	void fireEvent(final ModConfigEvent configEvent) {
@@ -92,6 +93,7 @@ public class ModConfig {
 
 	public void save() {
 		((CommentedFileConfig) this.configData).save();
+		ConfigTracker.INSTANCE.invalidateSyncData(this);
 	}
 
 	public Path getFullPath() {
@@ -24,6 +24,10 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.network.NetworkDirection;
+import net.minecraftforge.fml.network.NetworkMetrics;
+import net.minecraftforge.fml.network.simple.MessageBatcher;
+import net.minecraftforge.fml.network.simple.MessageQueue;
 import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.Inventory;
@@ -43,6 +47,7 @@ public class BasicEventHooks {
 
 	public static void firePlayerLoggedOut(PlayerEntity player) {
 		MinecraftForge.EVENT_BUS.post(new PlayerEvent.PlayerLoggedOutEvent(player));
+		NetworkMetrics.playerLoggedOut(player.getGameProfile().getName());
 	}
 
 	public static void firePlayerRespawnEvent(PlayerEntity player, boolean endConquered) {
@@ -92,6 +97,8 @@ public class BasicEventHooks {
 
 	public static void onPostClientTick() {
 		MinecraftForge.EVENT_BUS.post(new TickEvent.ClientTickEvent(TickEvent.Phase.END));
+		MessageQueue.drainAll(LogicalSide.CLIENT);
+		MessageBatcher.flushAll(NetworkDirection.PLAY_TO_SERVER);
 	}
 
 	public static void onPreServerTick() {
@@ -100,5 +107,8 @@ public class BasicEventHooks {
 
 	public static void onPostServerTick() {
 		MinecraftForge.EVENT_BUS.post(new TickEvent.ServerTickEvent(TickEvent.Phase.END));
+		MessageQueue.drainAll(LogicalSide.SERVER);
+		MessageBatcher.flushAll(NetworkDirection.PLAY_TO_CLIENT);
+		NetworkMetrics.tick();
 	}
 }
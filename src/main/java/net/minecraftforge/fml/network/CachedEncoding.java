@@ -0,0 +1,50 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import java.util.function.Consumer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketByteBuf;
+
+/**
+ * The encoded body of an immutable message. It is written the first time the message is encoded, kept as a read only
+ * buffer, and copied into every later encoding instead of being rebuilt.
+ */
+class CachedEncoding {
+	private final Consumer<PacketByteBuf> writer;
+	private volatile ByteBuf body;
+
+	CachedEncoding(Consumer<PacketByteBuf> writer) {
+		this.writer = writer;
+	}
+
+	void writeTo(PacketByteBuf target) {
+		ByteBuf cached = body;
+		if (cached == null) {
+			final PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+			writer.accept(buf);
+			cached = buf.asReadOnly();
+			body = cached;
+		}
+		target.writeBytes(cached, cached.readerIndex(), cached.readableBytes());
+	}
+}
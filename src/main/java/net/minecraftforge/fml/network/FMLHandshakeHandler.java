@@ -19,29 +19,35 @@
 
 package net.minecraftforge.fml.network;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import io.netty.buffer.Unpooled;
 import net.minecraft.network.ClientConnection;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.text.LiteralText;
 import net.minecraft.util.Identifier;
 import net.minecraftforge.fml.config.ConfigTracker;
 import net.minecraftforge.fml.loading.AdvancedLogMessageAdapter;
 import net.minecraftforge.fml.network.simple.SimpleChannel;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
 import net.minecraftforge.fml.util.ThreeConsumer;
 import net.minecraftforge.registries.ForgeRegistry;
 import net.minecraftforge.registries.GameData;
+import net.minecraftforge.registries.RegistryManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Marker;
@@ -67,7 +73,8 @@ import static net.minecraftforge.registries.ForgeRegistry.REGISTRIES;
  * which solicits all registered channels at the {@link NetworkRegistry} for any
  * {@link net.minecraftforge.fml.network.NetworkRegistry.LoginPayload} they wish to supply.
  *
- * <p>The collected {@link net.minecraftforge.fml.network.NetworkRegistry.LoginPayload} are sent, one per tick, via
+ * <p>The collected {@link net.minecraftforge.fml.network.NetworkRegistry.LoginPayload} are sent in order, as many per tick
+ * as the pipeline window allows, via
  * the {@link FMLLoginWrapper#wrapPacket(ResourceLocation, PacketBuffer)} mechanism to the incoming client connection. Each
  * packet is indexed via {@link net.minecraft.network.login.client.CCustomPayloadLoginPacket#transaction}, which is
  * the only mechanism available for tracking request/response pairs.
@@ -84,6 +91,11 @@ public class FMLHandshakeHandler {
 	private static final Logger LOGGER = LogManager.getLogger();
 
 	private static final FMLLoginWrapper loginWrapper = new FMLLoginWrapper();
+	/**
+	 * How many login payloads may be awaiting the client's reply at once. 1 sends each payload only after the previous
+	 * one was answered.
+	 */
+	private static final int PIPELINE_WINDOW = Math.max(1, Integer.getInteger("forge.login.pipelineWindow", 32));
 
 	static {
 	}
@@ -105,14 +117,20 @@ public class FMLHandshakeHandler {
 
 	private final List<NetworkRegistry.LoginPayload> messageList;
 
-	private final List<Integer> sentMessages = new ArrayList<>();
+	// Replies are handled on the network thread while payloads are sent from the server thread
+	private final Set<Integer> sentMessages = ConcurrentHashMap.newKeySet();
 
 	private final NetworkDirection direction;
 	private final ClientConnection manager;
 	private int packetPosition;
 	private Map<Identifier, ForgeRegistry.Snapshot> registrySnapshots;
 	private Set<Identifier> registriesToReceive;
-	private Map<Identifier, String> registryHashes;
+	private RegistrySnapshotCache registryCache;
+	private Map<Identifier, ForgeRegistry.Snapshot> receivedSnapshots;
+	private volatile Map<Identifier, String> registryHashes;
+	private boolean compactSnapshots; // Written before, and read after, registryHashes
+	private int registryPayloadStart;
+	private int registryPayloadEnd;
 
 	private FMLHandshakeHandler(ClientConnection networkManager, NetworkDirection side) {
 		this.direction = side;
@@ -125,10 +143,51 @@ public class FMLHandshakeHandler {
 			LOGGER.debug(FMLHSMARKER, "Starting new vanilla network connection.");
 		} else {
 			this.messageList = NetworkRegistry.gatherLoginPayloads(this.direction, false);
+			addRegistryPayloads();
 			LOGGER.debug(FMLHSMARKER, "Starting new modded network connection. Found {} messages to dispatch.", this.messageList.size());
 		}
 	}
 
+	/**
+	 * Registry snapshots are queued directly after the {@link FMLHandshakeMessages.S2CModList}, but only encoded once the
+	 * client's {@link FMLHandshakeMessages.C2SModListReply} has told us which snapshots it already has cached.
+	 */
+	private void addRegistryPayloads() {
+		if (this.direction != NetworkDirection.LOGIN_TO_CLIENT) {
+			return;
+		}
+		final String modListContext = FMLHandshakeMessages.S2CModList.class.getName();
+		int insertAt = 0;
+		for (int i = 0; i < this.messageList.size(); i++) {
+			NetworkRegistry.LoginPayload payload = this.messageList.get(i);
+			if (payload.getChannelName().equals(FMLNetworkConstants.FML_HANDSHAKE_RESOURCE) && payload.getMessageContext().equals(modListContext)) {
+				insertAt = i + 1;
+				break;
+			}
+		}
+		List<NetworkRegistry.LoginPayload> registries = RegistryManager.generateRegistryPackets(false).stream().
+			map(p -> new NetworkRegistry.LoginPayload(() -> encodeRegistryPayload(p.getRight()), FMLNetworkConstants.FML_HANDSHAKE_RESOURCE, p.getLeft())).
+			collect(Collectors.toList());
+		this.messageList.addAll(insertAt, registries);
+		this.registryPayloadStart = insertAt;
+		this.registryPayloadEnd = insertAt + registries.size();
+	}
+
+	private PacketByteBuf encodeRegistryPayload(FMLHandshakeMessages.S2CRegistry message) {
+		final Identifier name = message.getRegistryName();
+		final String clientHash = this.registryHashes.get(name);
+		if (clientHash != null && message.hasSnapshot() && clientHash.equals(message.getSnapshot().getPacketHash())) {
+			LOGGER.debug(FMLHSMARKER, "Client has an up to date copy of registry {} cached", name);
+			message = FMLHandshakeMessages.S2CRegistry.cached(name, clientHash);
+		} else if (message.hasSnapshot() && this.compactSnapshots) {
+			MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+			message = message.withCompactEncoding(server == null ? -1 : server.getNetworkCompressionThreshold());
+		}
+		PacketByteBuf buffer = new PacketByteBuf(Unpooled.buffer());
+		FMLNetworkConstants.handshakeChannel.encodeMessage(message, buffer);
+		return buffer;
+	}
+
 	/**
 	 * Transforms a two-argument instance method reference into a {@link BiConsumer} based on the {@link #getHandshake(Supplier)} function.
 	 *
@@ -176,7 +235,12 @@ public class FMLHandshakeHandler {
 			c.get().getNetworkManager().disconnect(new LiteralText("Connection closed - mismatched mod channel list"));
 			return;
 		}
-		FMLNetworkConstants.handshakeChannel.reply(new FMLHandshakeMessages.C2SModListReply(), c.get());
+		Map<Identifier, String> cachedHashes = Maps.newHashMap();
+		if (!c.get().getNetworkManager().isLocal()) {
+			this.registryCache = RegistrySnapshotCache.forServer(c.get().getNetworkManager());
+			cachedHashes.putAll(this.registryCache.load(serverModList.getRegistries()));
+		}
+		FMLNetworkConstants.handshakeChannel.reply(new FMLHandshakeMessages.C2SModListReply(cachedHashes, true), c.get());
 
 		LOGGER.debug(FMLHSMARKER, "Accepted server connection");
 		// Set the modded marker on the channel so we know we got packets
@@ -184,12 +248,13 @@ public class FMLHandshakeHandler {
 
 		this.registriesToReceive = new HashSet<>(serverModList.getRegistries());
 		this.registrySnapshots = Maps.newHashMap();
+		this.receivedSnapshots = Maps.newHashMap();
 		LOGGER.debug(REGISTRIES, "Expecting {} registries: {}", () -> this.registriesToReceive.size(), () -> this.registriesToReceive);
 	}
 
 	<MSG extends IntSupplier> void handleIndexedMessage(MSG message, Supplier<NetworkEvent.Context> c) {
 		LOGGER.debug(FMLHSMARKER, "Received client indexed reply {} of type {}", message.getAsInt(), message.getClass().getName());
-		boolean removed = this.sentMessages.removeIf(i -> i == message.getAsInt());
+		boolean removed = this.sentMessages.remove(message.getAsInt());
 		if (!removed) {
 			LOGGER.error(FMLHSMARKER, "Recieved unexpected index {} in client reply", message.getAsInt());
 		}
@@ -204,13 +269,27 @@ public class FMLHandshakeHandler {
 			c.get().getNetworkManager().disconnect(new LiteralText("Connection closed - mismatched mod channel list"));
 			return;
 		}
-		LOGGER.debug(FMLHSMARKER, "Accepted client connection mod list");
+		this.compactSnapshots = clientModList.acceptsCompactSnapshots();
+		this.registryHashes = clientModList.getRegistries();
+		LOGGER.debug(FMLHSMARKER, "Accepted client connection mod list, client sent {} registry hashes", this.registryHashes.size());
 	}
 
 	void handleRegistryMessage(final FMLHandshakeMessages.S2CRegistry registryPacket, final Supplier<NetworkEvent.Context> contextSupplier) {
 		LOGGER.debug(FMLHSMARKER, "Received registry packet for {}", registryPacket.getRegistryName());
+		ForgeRegistry.Snapshot snapshot = registryPacket.getSnapshot();
+		if (registryPacket.isCached()) {
+			snapshot = this.registryCache == null ? null : this.registryCache.get(registryPacket.getRegistryName(), registryPacket.getCachedHash());
+			if (snapshot == null) {
+				LOGGER.error(FMLHSMARKER, "Server referred to cached registry {} which we do not have, closing connection", registryPacket.getRegistryName());
+				contextSupplier.get().setPacketHandled(true);
+				this.manager.disconnect(new LiteralText("Failed to synchronize registry data from server, closing connection"));
+				return;
+			}
+		} else if (snapshot != null) {
+			this.receivedSnapshots.put(registryPacket.getRegistryName(), snapshot);
+		}
 		this.registriesToReceive.remove(registryPacket.getRegistryName());
-		this.registrySnapshots.put(registryPacket.getRegistryName(), registryPacket.getSnapshot());
+		this.registrySnapshots.put(registryPacket.getRegistryName(), snapshot);
 
 		boolean continueHandshake = true;
 		if (this.registriesToReceive.isEmpty()) {
@@ -248,6 +327,9 @@ public class FMLHandshakeHandler {
 		}
 		if (successfulConnection.get()) {
 			LOGGER.debug(FMLHSMARKER, "Registry load complete, continuing handshake.");
+			if (this.registryCache != null) {
+				this.registryCache.store(this.receivedSnapshots);
+			}
 		} else {
 			LOGGER.error(FMLHSMARKER, "Failed to load registry, closing connection.");
 			this.manager.disconnect(new LiteralText("Failed to synchronize registry data from server, closing connection"));
@@ -255,6 +337,10 @@ public class FMLHandshakeHandler {
 		return successfulConnection.get();
 	}
 
+	private boolean awaitingHashes() {
+		return registryHashes == null && packetPosition >= registryPayloadStart && packetPosition < registryPayloadEnd;
+	}
+
 	void handleClientAck(final FMLHandshakeMessages.C2SAcknowledge msg, final Supplier<NetworkEvent.Context> contextSupplier) {
 		LOGGER.debug(FMLHSMARKER, "Received acknowledgement from client");
 		contextSupplier.get().setPacketHandled(true);
@@ -271,15 +357,22 @@ public class FMLHandshakeHandler {
 	 * FML will send packets, from Server to Client, from the messages queue until the queue is drained. Each message
 	 * will be indexed, and placed into the "pending acknowledgement" queue.
 	 *
+	 * Messages are pipelined: each tick sends as many as fit in the window of {@link #PIPELINE_WINDOW} unanswered
+	 * messages, rather than waiting a round trip per message. They still go out in list order, so the client handles
+	 * them in the order they were gathered.
+	 *
 	 * As indexed packets are received at the server, they will be removed from the "pending acknowledgement" queue.
 	 *
-	 * Once the pending queue is drained, this method returns true - indicating that login processing can proceed to
-	 * the next step.
+	 * Once every message is sent and the pending queue is drained, this method returns true - indicating that login
+	 * processing can proceed to the next step.
+	 *
+	 * Registry snapshots are held back until the client's mod list reply has arrived, since that reply tells us which
+	 * snapshots the client can load from its own cache. That is the only point where sending waits on the client.
 	 *
 	 * @return true if there is no more need to tick this login connection.
 	 */
 	public boolean tickServer() {
-		if (packetPosition < messageList.size()) {
+		while (packetPosition < messageList.size() && sentMessages.size() < PIPELINE_WINDOW && !awaitingHashes()) {
 			NetworkRegistry.LoginPayload message = messageList.get(packetPosition);
 
 			LOGGER.debug(FMLHSMARKER, "Sending ticking packet info '{}' to '{}' sequence {}", message.getMessageContext(), message.getChannelName(), packetPosition);
@@ -288,8 +381,8 @@ public class FMLHandshakeHandler {
 			packetPosition++;
 		}
 
-		// we're done when sentMessages is empty
-		if (sentMessages.isEmpty() && packetPosition >= messageList.size() - 1) {
+		// we're done when every message is sent and sentMessages is empty
+		if (sentMessages.isEmpty() && packetPosition >= messageList.size()) {
 			// clear ourselves - we're done!
 			this.manager.channel().attr(FMLNetworkConstants.FML_HANDSHAKE_HANDLER).set(null);
 			LOGGER.debug(FMLHSMARKER, "Handshake complete!");
@@ -127,17 +127,28 @@ public class FMLHandshakeMessages {
 		private final List<String> mods;
 		private final Map<Identifier, String> channels;
 		private final Map<Identifier, String> registries;
+		private final boolean compactSnapshots;
 
 		public C2SModListReply() {
+			this(Maps.newHashMap(), false);
+		}
+
+		/**
+		 * @param registryHashes hashes of the registry snapshots the client has cached for this server
+		 * @param compactSnapshots true if the client can read registry snapshots in the compact encoding
+		 */
+		public C2SModListReply(Map<Identifier, String> registryHashes, boolean compactSnapshots) {
 			this.mods = ModList.get().getMods().stream().map(ModInfo::getModId).collect(Collectors.toList());
 			this.channels = NetworkRegistry.buildChannelVersions();
-			this.registries = Maps.newHashMap(); //TODO: Fill with known hashes, which requires keeping a file cache
+			this.registries = registryHashes;
+			this.compactSnapshots = compactSnapshots;
 		}
 
-		private C2SModListReply(List<String> mods, Map<Identifier, String> channels, Map<Identifier, String> registries) {
+		private C2SModListReply(List<String> mods, Map<Identifier, String> channels, Map<Identifier, String> registries, boolean compactSnapshots) {
 			this.mods = mods;
 			this.channels = channels;
 			this.registries = registries;
+			this.compactSnapshots = compactSnapshots;
 		}
 
 		public static C2SModListReply decode(PacketByteBuf input) {
@@ -159,7 +170,10 @@ public class FMLHandshakeMessages {
 				registries.put(input.readIdentifier(), input.readString(0x100));
 			}
 
-			return new C2SModListReply(mods, channels, registries);
+			// Trails the message, so older clients that never write it read as not supporting compact snapshots
+			boolean compactSnapshots = input.isReadable() && input.readBoolean();
+
+			return new C2SModListReply(mods, channels, registries, compactSnapshots);
 		}
 
 		public void encode(PacketByteBuf output) {
@@ -177,6 +191,8 @@ public class FMLHandshakeMessages {
 				output.writeIdentifier(k);
 				output.writeString(v, 0x100);
 			});
+
+			output.writeBoolean(compactSnapshots);
 		}
 
 		public List<String> getModList() {
@@ -190,6 +206,10 @@ public class FMLHandshakeMessages {
 		public Map<Identifier, String> getChannels() {
 			return this.channels;
 		}
+
+		public boolean acceptsCompactSnapshots() {
+			return this.compactSnapshots;
+		}
 	}
 
 	public static class C2SAcknowledge extends LoginIndexedMessage {
@@ -202,33 +222,92 @@ public class FMLHandshakeMessages {
 		}
 	}
 
+	/**
+	 * Server to client registry snapshot. If the client advertised a matching hash in {@link C2SModListReply} the
+	 * snapshot itself is omitted and only its hash is sent, telling the client to use its cached copy.
+	 * The cached form trails the legacy "no snapshot" encoding, so it is only ever sent to clients that sent hashes.
+	 *
+	 * <p>The byte after the name is the snapshot format: 0 for none, 1 for the legacy encoding and 2 for the compact
+	 * encoding, which is only sent to clients that accept it, see {@link C2SModListReply#acceptsCompactSnapshots()}. Old
+	 * clients read the first two as a boolean.
+	 */
 	public static class S2CRegistry extends LoginIndexedMessage {
+		private static final int FORMAT_NONE = 0;
+		private static final int FORMAT_LEGACY = 1;
+		private static final int FORMAT_COMPACT = 2;
+
 		private final Identifier registryName;
 		@Nullable
 		private final ForgeRegistry.Snapshot snapshot;
+		@Nullable
+		private final String cachedHash;
+		private final boolean compact;
+		private final int compressionThreshold;
 
 		public S2CRegistry(final Identifier name,
 		                   @Nullable
 			                   ForgeRegistry.Snapshot snapshot) {
+			this(name, snapshot, null, false, -1);
+		}
+
+		private S2CRegistry(final Identifier name, @Nullable ForgeRegistry.Snapshot snapshot, @Nullable String cachedHash, boolean compact, int compressionThreshold) {
 			this.registryName = name;
 			this.snapshot = snapshot;
+			this.cachedHash = cachedHash;
+			this.compact = compact;
+			this.compressionThreshold = compressionThreshold;
+		}
+
+		public static S2CRegistry cached(final Identifier name, final String hash) {
+			return new S2CRegistry(name, null, hash, false, -1);
+		}
+
+		/**
+		 * @param compressionThreshold snapshots at least this many bytes long are deflated, negative to never compress
+		 * @return a copy of this message which sends its snapshot in the compact encoding
+		 */
+		public S2CRegistry withCompactEncoding(int compressionThreshold) {
+			return new S2CRegistry(registryName, snapshot, cachedHash, true, compressionThreshold);
 		}
 
 		void encode(final PacketByteBuf buffer) {
 			buffer.writeIdentifier(registryName);
-			buffer.writeBoolean(hasSnapshot());
-			if (hasSnapshot()) {
+			if (hasSnapshot() && compact) {
+				buffer.writeByte(FORMAT_COMPACT);
+				snapshot.writeCompact(buffer, compressionThreshold);
+			} else if (hasSnapshot()) {
+				buffer.writeByte(FORMAT_LEGACY);
 				buffer.writeBytes(snapshot.getPacketData());
+			} else {
+				buffer.writeByte(FORMAT_NONE);
+				if (isCached()) {
+					buffer.writeBoolean(true);
+					buffer.writeString(cachedHash, 0x100);
+				}
 			}
 		}
 
 		public static S2CRegistry decode(final PacketByteBuf buffer) {
 			Identifier name = buffer.readIdentifier();
 			ForgeRegistry.Snapshot snapshot = null;
-			if (buffer.readBoolean()) {
-				snapshot = ForgeRegistry.Snapshot.read(buffer);
+			String cachedHash = null;
+			int format = buffer.readByte();
+			switch (format) {
+				case FORMAT_NONE:
+					if (buffer.isReadable() && buffer.readBoolean()) {
+						cachedHash = buffer.readString(0x100);
+					}
+					break;
+				case FORMAT_LEGACY:
+					snapshot = ForgeRegistry.Snapshot.read(buffer);
+					break;
+				case FORMAT_COMPACT:
+					snapshot = ForgeRegistry.Snapshot.readCompact(buffer);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown registry snapshot format " + format + " for " + name);
 			}
-			return new S2CRegistry(name, snapshot);
+			return new S2CRegistry(name, snapshot, cachedHash, format == FORMAT_COMPACT, -1);
 		}
 
 		public Identifier getRegistryName() {
@@ -239,6 +318,15 @@ public class FMLHandshakeMessages {
 			return snapshot != null;
 		}
 
+		public boolean isCached() {
+			return cachedHash != null;
+		}
+
+		@Nullable
+		public String getCachedHash() {
+			return cachedHash;
+		}
+
 		@Nullable
 		public ForgeRegistry.Snapshot getSnapshot() {
 			return snapshot;
@@ -248,6 +336,7 @@ public class FMLHandshakeMessages {
 	public static class S2CConfigData extends LoginIndexedMessage {
 		private final String fileName;
 		private final byte[] fileData;
+		private final CachedEncoding encoded = new CachedEncoding(this::write);
 
 		public S2CConfigData(final String configFileName, final byte[] configFileData) {
 			this.fileName = configFileName;
@@ -255,6 +344,10 @@ public class FMLHandshakeMessages {
 		}
 
 		void encode(final PacketByteBuf buffer) {
+			encoded.writeTo(buffer);
+		}
+
+		private void write(final PacketByteBuf buffer) {
 			buffer.writeString(this.fileName);
 			buffer.writeByteArray(this.fileData);
 		}
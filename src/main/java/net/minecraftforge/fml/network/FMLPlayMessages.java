@@ -298,6 +298,7 @@ public class FMLPlayMessages {
 	public static class SyncCustomTagTypes {
 		private static final Logger LOGGER = LogManager.getLogger();
 		private final Map<Identifier, TagGroup<?>> customTagTypeCollections;
+		private final CachedEncoding encoded = new CachedEncoding(this::write);
 
 		SyncCustomTagTypes(Map<Identifier, TagGroup<?>> customTagTypeCollections) {
 			this.customTagTypeCollections = customTagTypeCollections;
@@ -308,8 +309,12 @@ public class FMLPlayMessages {
 		}
 
 		public static void encode(SyncCustomTagTypes msg, PacketByteBuf buf) {
-			buf.writeVarInt(msg.customTagTypeCollections.size());
-			msg.customTagTypeCollections.forEach((registryName, modded) -> forgeTagCollectionWrite(buf, registryName, modded.getTags()));
+			msg.encoded.writeTo(buf);
+		}
+
+		private void write(PacketByteBuf buf) {
+			buf.writeVarInt(customTagTypeCollections.size());
+			customTagTypeCollections.forEach((registryName, modded) -> forgeTagCollectionWrite(buf, registryName, modded.getTags()));
 		}
 
 		private static <T> void forgeTagCollectionWrite(PacketByteBuf buf, Identifier registryName, Map<Identifier, Tag<T>> tags) {
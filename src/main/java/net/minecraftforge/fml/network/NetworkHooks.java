@@ -32,6 +32,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.player.PlayerContainerEvent;
+import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.common.thread.EffectiveSide;
 import net.minecraftforge.fml.config.ConfigTracker;
 import org.apache.logging.log4j.LogManager;
@@ -55,6 +56,7 @@ import net.minecraft.util.math.BlockPos;
 
 public class NetworkHooks {
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static volatile FMLPlayMessages.SyncCustomTagTypes customTagTypesMessage;
 
 	public static String getFMLVersion(final String ip) {
 		return ip.contains("\0") ? Objects.equals(ip.split("\0")[1], FMLNetworkConstants.NETVERSION) ? FMLNetworkConstants.NETVERSION : ip.split("\0")[1] : FMLNetworkConstants.NOVERSION;
@@ -77,13 +79,21 @@ public class NetworkHooks {
 	}
 
 	public static boolean onCustomPayload(final ICustomPacket<?> packet, final ClientConnection manager) {
+		return onCustomPayload(packet, manager, EffectiveSide.get());
+	}
+
+	/**
+	 * Like {@link #onCustomPayload(ICustomPacket, ClientConnection)}, for callers that know which side is receiving,
+	 * such as the network threads, whose thread group does not tell the sides apart on local connections.
+	 */
+	static boolean onCustomPayload(final ICustomPacket<?> packet, final ClientConnection manager, final LogicalSide receptionSide) {
 		return NetworkRegistry.findTarget(packet.getName()).
-			filter(ni -> validateSideForProcessing(packet, ni, manager)).
+			filter(ni -> validateSideForProcessing(packet, ni, manager, receptionSide)).
 			map(ni -> ni.dispatch(packet.getDirection(), packet, manager)).orElse(Boolean.FALSE);
 	}
 
-	private static boolean validateSideForProcessing(final ICustomPacket<?> packet, final NetworkInstance ni, final ClientConnection manager) {
-		if (packet.getDirection().getReceptionSide() != EffectiveSide.get()) {
+	private static boolean validateSideForProcessing(final ICustomPacket<?> packet, final NetworkInstance ni, final ClientConnection manager, final LogicalSide receptionSide) {
+		if (packet.getDirection().getReceptionSide() != receptionSide) {
 			manager.disconnect(new LiteralText("Illegal packet received, terminating connection"));
 			return false;
 		}
@@ -100,11 +110,15 @@ public class NetworkHooks {
 	public static void registerServerLoginChannel(ClientConnection manager, HandshakeC2SPacket packet) {
 		manager.channel().attr(FMLNetworkConstants.FML_NETVERSION).set(packet.getFMLVersion());
 		FMLHandshakeHandler.registerHandshake(manager, NetworkDirection.LOGIN_TO_CLIENT);
+		TrafficCounter.install(manager);
+		NetworkThreadDispatcher.install(manager, LogicalSide.SERVER);
 	}
 
 	public synchronized static void registerClientLoginChannel(ClientConnection manager) {
 		manager.channel().attr(FMLNetworkConstants.FML_NETVERSION).set(FMLNetworkConstants.NOVERSION);
 		FMLHandshakeHandler.registerHandshake(manager, NetworkDirection.LOGIN_TO_SERVER);
+		TrafficCounter.install(manager);
+		NetworkThreadDispatcher.install(manager, LogicalSide.CLIENT);
 	}
 
 	public synchronized static void sendMCRegistryPackets(ClientConnection manager, String direction) {
@@ -229,7 +243,7 @@ public class NetworkHooks {
 	public static void syncCustomTagTypes(TagManager tagCollectionSupplier) {
 		Map<Identifier, TagGroup<?>> customTagTypes = tagCollectionSupplier.getCustomTagTypes();
 		if (!customTagTypes.isEmpty()) {
-			FMLNetworkConstants.playChannel.send(PacketDistributor.ALL.noArg(), new FMLPlayMessages.SyncCustomTagTypes(customTagTypes));
+			FMLNetworkConstants.playChannel.send(PacketDistributor.ALL.noArg(), customTagTypesMessage(customTagTypes));
 		}
 	}
 
@@ -241,7 +255,20 @@ public class NetworkHooks {
 	public static void syncCustomTagTypes(ServerPlayerEntity player, TagManager tagCollectionSupplier) {
 		Map<Identifier, TagGroup<?>> customTagTypes = tagCollectionSupplier.getCustomTagTypes();
 		if (!customTagTypes.isEmpty()) {
-			FMLNetworkConstants.playChannel.sendTo(new FMLPlayMessages.SyncCustomTagTypes(customTagTypes), player.networkHandler.getConnection(), NetworkDirection.PLAY_TO_CLIENT);
+			FMLNetworkConstants.playChannel.sendTo(customTagTypesMessage(customTagTypes), player.networkHandler.getConnection(), NetworkDirection.PLAY_TO_CLIENT);
+		}
+	}
+
+	/**
+	 * The tag map is replaced on every reload, so the message built for it, and its encoding, can be shared by every
+	 * player that joins until the next reload.
+	 */
+	private static FMLPlayMessages.SyncCustomTagTypes customTagTypesMessage(Map<Identifier, TagGroup<?>> customTagTypes) {
+		FMLPlayMessages.SyncCustomTagTypes message = customTagTypesMessage;
+		if (message == null || message.getCustomTagTypes() != customTagTypes) {
+			message = new FMLPlayMessages.SyncCustomTagTypes(customTagTypes);
+			customTagTypesMessage = message;
 		}
+		return message;
 	}
 }
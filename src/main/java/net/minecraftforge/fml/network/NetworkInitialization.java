@@ -25,7 +25,6 @@ import java.util.List;
 import net.minecraftforge.fml.config.ConfigTracker;
 import net.minecraftforge.fml.network.event.EventNetworkChannel;
 import net.minecraftforge.fml.network.simple.SimpleChannel;
-import net.minecraftforge.registries.RegistryManager;
 
 class NetworkInitialization {
 
@@ -63,7 +62,6 @@ class NetworkInitialization {
 			loginIndex(FMLHandshakeMessages.LoginIndexedMessage::getLoginIndex, FMLHandshakeMessages.LoginIndexedMessage::setLoginIndex).
 			decoder(FMLHandshakeMessages.S2CRegistry::decode).
 			encoder(FMLHandshakeMessages.S2CRegistry::encode).
-			buildLoginPacketList(RegistryManager::generateRegistryPackets). //TODO: Make this non-static, and store a cache on the client.
 			consumer(FMLHandshakeHandler.biConsumerFor(FMLHandshakeHandler::handleRegistryMessage)).
 			add();
 
@@ -40,6 +40,7 @@ public class NetworkInstance {
 	private final Predicate<String> clientAcceptedVersions;
 	private final Predicate<String> serverAcceptedVersions;
 	private final IEventBus networkEventBus;
+	private volatile boolean networkThreadDispatch;
 
 	NetworkInstance(Identifier channelName, Supplier<String> networkProtocolVersion, Predicate<String> clientAcceptedVersions, Predicate<String> serverAcceptedVersions) {
 		this.channelName = channelName;
@@ -69,6 +70,18 @@ public class NetworkInstance {
 		this.networkEventBus.unregister(object);
 	}
 
+	/**
+	 * Deliver play payloads for this channel on the network thread that receives them, rather than on the main thread.
+	 * Listeners are then responsible for moving work to the main thread themselves.
+	 */
+	public void enableNetworkThreadDispatch() {
+		this.networkThreadDispatch = true;
+	}
+
+	boolean isNetworkThreadDispatch() {
+		return networkThreadDispatch;
+	}
+
 	boolean dispatch(final NetworkDirection side, final ICustomPacket<?> packet, final ClientConnection manager) {
 		final NetworkEvent.Context context = new NetworkEvent.Context(manager, side, packet.getIndex());
 		this.networkEventBus.post(side.getEvent(packet, () -> context));
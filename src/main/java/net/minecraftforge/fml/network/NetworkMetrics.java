@@ -0,0 +1,287 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.listener.PacketListener;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.util.Identifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static net.minecraftforge.fml.network.FMLNetworkConstants.NETWORK;
+
+/**
+ * Counts custom payload traffic {messages and bytes per channel and direction, per message index, and per sending
+ * player}
+ *
+ * Counters are {@link LongAdder}s so network threads never contend on them. Encode and decode times are sampled on a
+ * fraction of the messages to keep the overhead low.
+ */
+public class NetworkMetrics {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int SAMPLE_RATE = 16;
+	private static final long LOG_INTERVAL = TimeUnit.SECONDS.toNanos(Long.getLong("forge.network.metricsLogInterval", 300));
+
+	private static final Map<Identifier, ChannelStats> channels = new ConcurrentHashMap<>();
+	private static final Map<String, Traffic> senders = new ConcurrentHashMap<>();
+	private static long nextLog = System.nanoTime() + LOG_INTERVAL;
+
+	/**
+	 * @return The statistics for the channel, created if needed
+	 */
+	public static ChannelStats channel(Identifier name) {
+		// computeIfAbsent locks the bin even when the channel exists, try a plain read first
+		final ChannelStats stats = channels.get(name);
+		return stats != null ? stats : channels.computeIfAbsent(name, ChannelStats::new);
+	}
+
+	/**
+	 * @return true if the caller should time the current encode or decode
+	 */
+	public static boolean sample() {
+		return ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0;
+	}
+
+	static void recordSent(ICustomPacket<?> packet) {
+		recordSent(packet.getName(), packet.getDirection(), size(packet));
+	}
+
+	static void recordSent(Identifier name, NetworkDirection direction, int bytes) {
+		if (direction != null) {
+			channel(name).sent[direction.ordinal()].record(bytes);
+		}
+	}
+
+	static void recordReceived(ICustomPacket<?> packet, ClientConnection connection) {
+		final NetworkDirection direction = packet.getDirection();
+		if (direction == null) {
+			return;
+		}
+		final int bytes = size(packet);
+		channel(packet.getName()).received[direction.ordinal()].record(bytes);
+		final PacketListener listener = connection.getPacketListener();
+		if (listener instanceof ServerPlayNetworkHandler) {
+			final String player = ((ServerPlayNetworkHandler) listener).player.getGameProfile().getName();
+			Traffic traffic = senders.get(player);
+			if (traffic == null) {
+				traffic = senders.computeIfAbsent(player, k -> new Traffic());
+			}
+			traffic.record(bytes);
+		}
+	}
+
+	/**
+	 * Forgets the traffic received from a player, called when they log out.
+	 */
+	public static void playerLoggedOut(String player) {
+		senders.remove(player);
+	}
+
+	static int size(ICustomPacket<?> packet) {
+		final PacketByteBuf data = packet.getInternalData();
+		return data == null ? 0 : data.readableBytes();
+	}
+
+	/**
+	 * @return A snapshot of the statistics per channel
+	 */
+	public static ImmutableMap<Identifier, ChannelStats> getChannelData() {
+		return ImmutableMap.copyOf(channels);
+	}
+
+	/**
+	 * @return A snapshot of the traffic received from each online player, by player name
+	 */
+	public static ImmutableMap<String, Traffic> getSenderData() {
+		return ImmutableMap.copyOf(senders);
+	}
+
+	/**
+	 * Clears all data collected so far. Channel statistics are zeroed rather than dropped, as codecs hold on to them.
+	 */
+	public static void reset() {
+		channels.values().forEach(ChannelStats::reset);
+		senders.clear();
+	}
+
+	/**
+	 * Logs the busiest channels every {@code forge.network.metricsLogInterval} seconds, called once per server tick.
+	 */
+	public static void tick() {
+		if (LOG_INTERVAL <= 0 || !LOGGER.isDebugEnabled(NETWORK)) {
+			return;
+		}
+		final long now = System.nanoTime();
+		if (now - nextLog < 0) {
+			return;
+		}
+		nextLog = now + LOG_INTERVAL;
+		channels.values().stream()
+			.filter(c -> c.getTotalBytes() > 0)
+			.sorted(Comparator.comparingLong(ChannelStats::getTotalBytes).reversed())
+			.limit(5)
+			.forEach(c -> LOGGER.debug(NETWORK, "Channel {}: sent {} messages ({} bytes), received {} messages ({} bytes)",
+				c.getName(), c.getSentMessages(), c.getSentBytes(), c.getReceivedMessages(), c.getReceivedBytes()));
+	}
+
+	public static class Traffic {
+		private final LongAdder messages = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+
+		void record(int size) {
+			messages.increment();
+			bytes.add(size);
+		}
+
+		void reset() {
+			messages.reset();
+			bytes.reset();
+		}
+
+		public long getMessages() { return messages.sum(); }
+		public long getBytes() { return bytes.sum(); }
+	}
+
+	public static class ChannelStats {
+		private final Identifier name;
+		private final Traffic[] sent = newTraffic();
+		private final Traffic[] received = newTraffic();
+		private final AtomicReferenceArray<MessageStats> messages = new AtomicReferenceArray<>(256);
+
+		private ChannelStats(Identifier name) {
+			this.name = name;
+		}
+
+		private static Traffic[] newTraffic() {
+			final Traffic[] traffic = new Traffic[NetworkDirection.values().length];
+			for (int i = 0; i < traffic.length; i++) {
+				traffic[i] = new Traffic();
+			}
+			return traffic;
+		}
+
+		public Identifier getName() { return name; }
+		public Traffic getSent(NetworkDirection direction) { return sent[direction.ordinal()]; }
+		public Traffic getReceived(NetworkDirection direction) { return received[direction.ordinal()]; }
+
+		public long getSentMessages() { return sum(sent, Traffic::getMessages); }
+		public long getSentBytes() { return sum(sent, Traffic::getBytes); }
+		public long getReceivedMessages() { return sum(received, Traffic::getMessages); }
+		public long getReceivedBytes() { return sum(received, Traffic::getBytes); }
+		public long getTotalBytes() { return getSentBytes() + getReceivedBytes(); }
+
+		private void reset() {
+			for (Traffic t : sent) {
+				t.reset();
+			}
+			for (Traffic t : received) {
+				t.reset();
+			}
+			for (int i = 0; i < messages.length(); i++) {
+				messages.set(i, null);
+			}
+		}
+
+		private static long sum(Traffic[] traffic, ToLongFunction<Traffic> value) {
+			long total = 0;
+			for (Traffic t : traffic) {
+				total += value.applyAsLong(t);
+			}
+			return total;
+		}
+
+		/**
+		 * @return The statistics for one message index of an indexed channel, created if needed
+		 */
+		public MessageStats message(int index) {
+			MessageStats stats = messages.get(index & 0xff);
+			if (stats == null) {
+				messages.compareAndSet(index & 0xff, null, new MessageStats());
+				stats = messages.get(index & 0xff);
+			}
+			return stats;
+		}
+
+		/**
+		 * @return A snapshot of the statistics per message index, for the indices that saw traffic
+		 */
+		public ImmutableMap<Integer, MessageStats> getMessageData() {
+			final ImmutableMap.Builder<Integer, MessageStats> builder = ImmutableMap.builder();
+			for (int i = 0; i < messages.length(); i++) {
+				final MessageStats stats = messages.get(i);
+				if (stats != null) {
+					builder.put(i, stats);
+				}
+			}
+			return builder.build();
+		}
+	}
+
+	public static class MessageStats {
+		private final Timed encoded = new Timed();
+		private final Timed decoded = new Timed();
+
+		/**
+		 * @param nanos The time taken, or -1 if the call was not sampled
+		 */
+		public void recordEncode(int bytes, long nanos) { encoded.record(bytes, nanos); }
+
+		/**
+		 * @param nanos The time taken, or -1 if the call was not sampled
+		 */
+		public void recordDecode(int bytes, long nanos) { decoded.record(bytes, nanos); }
+
+		public Timed getEncoded() { return encoded; }
+		public Timed getDecoded() { return decoded; }
+	}
+
+	public static class Timed extends Traffic {
+		private final LongAdder samples = new LongAdder();
+		private final LongAdder sampledNanos = new LongAdder();
+
+		private void record(int size, long nanos) {
+			super.record(size);
+			if (nanos >= 0) {
+				samples.increment();
+				sampledNanos.add(nanos);
+			}
+		}
+
+		/**
+		 * @return The average time of the sampled calls in nanoseconds, 0 if none were sampled
+		 */
+		public double getAverageNanos() {
+			long count = samples.sum();
+			return count == 0 ? 0 : (double) sampledNanos.sum() / count;
+		}
+	}
+}
@@ -295,7 +295,7 @@ public class NetworkRegistry {
 		/**
 		 * The data for sending
 		 */
-		private final PacketByteBuf data;
+		private final Supplier<PacketByteBuf> data;
 		/**
 		 * A channel which will receive a {@link NetworkEvent.LoginPayloadEvent} from the {@link FMLLoginWrapper}
 		 */
@@ -307,13 +307,21 @@ public class NetworkRegistry {
 		private final String messageContext;
 
 		public LoginPayload(final PacketByteBuf buffer, final Identifier channelName, final String messageContext) {
-			this.data = buffer;
+			this(() -> buffer, channelName, messageContext);
+		}
+
+		/**
+		 * A payload whose data is only built when it is about to be sent, so it can depend on what the client has
+		 * replied so far.
+		 */
+		LoginPayload(final Supplier<PacketByteBuf> data, final Identifier channelName, final String messageContext) {
+			this.data = data;
 			this.channelName = channelName;
 			this.messageContext = messageContext;
 		}
 
 		public PacketByteBuf getData() {
-			return data;
+			return data.get();
 		}
 
 		public Identifier getChannelName() {
@@ -0,0 +1,65 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import net.minecraft.network.ClientConnection;
+import net.minecraftforge.fml.LogicalSide;
+
+/**
+ * Hands play payloads for channels that asked for {@link NetworkInstance#enableNetworkThreadDispatch()} to the channel
+ * as they are read, before vanilla moves custom payload handling onto the main thread.
+ */
+class NetworkThreadDispatcher extends ChannelInboundHandlerAdapter {
+	private static final String NAME = "forge:network_thread_dispatch";
+
+	private final ClientConnection connection;
+	private final LogicalSide side;
+
+	private NetworkThreadDispatcher(ClientConnection connection, LogicalSide side) {
+		this.connection = connection;
+		this.side = side;
+	}
+
+	static void install(ClientConnection manager, LogicalSide side) {
+		final ChannelPipeline pipeline = manager.channel().pipeline();
+		if (pipeline.get(NAME) == null && pipeline.get("packet_handler") != null) {
+			pipeline.addBefore("packet_handler", NAME, new NetworkThreadDispatcher(manager, side));
+		}
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof ICustomPacket) {
+			final ICustomPacket<?> packet = (ICustomPacket<?>) msg;
+			final NetworkDirection direction = packet.getDirection();
+			if (direction == NetworkDirection.PLAY_TO_SERVER || direction == NetworkDirection.PLAY_TO_CLIENT) {
+				if (NetworkRegistry.findTarget(packet.getName()).filter(NetworkInstance::isNetworkThreadDispatch).isPresent()) {
+					// Through the same hook as the main thread, which checks the packet was sent to the right side
+					NetworkHooks.onCustomPayload(packet, connection, side);
+					return;
+				}
+			}
+		}
+		ctx.fireChannelRead(msg);
+	}
+}
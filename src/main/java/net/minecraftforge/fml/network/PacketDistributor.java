@@ -24,6 +24,8 @@ import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.LogicalSidedProvider;
 import net.minecraft.client.MinecraftClient;
@@ -33,6 +35,7 @@ import net.minecraft.network.Packet;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
 import net.minecraft.util.registry.RegistryKey;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.WorldChunk;
@@ -50,55 +53,55 @@ public class PacketDistributor<T> {
 	 * <br/>
 	 * {@link #with(Supplier)} Player
 	 */
-	public static final PacketDistributor<ServerPlayerEntity> PLAYER = new PacketDistributor<>(PacketDistributor::playerConsumer, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<ServerPlayerEntity> PLAYER = new PacketDistributor<>(PacketDistributor::playerConsumer, PacketDistributor::playerConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to everyone in the dimension specified in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} DimensionType
 	 */
-	public static final PacketDistributor<RegistryKey<World>> DIMENSION = new PacketDistributor<>(PacketDistributor::playerListDimConsumer, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<RegistryKey<World>> DIMENSION = new PacketDistributor<>(PacketDistributor::playerListDimConsumer, PacketDistributor::playerListDimConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to everyone near the {@link TargetPoint} specified in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} TargetPoint
 	 */
-	public static final PacketDistributor<TargetPoint> NEAR = new PacketDistributor<>(PacketDistributor::playerListPointConsumer, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<TargetPoint> NEAR = new PacketDistributor<>(PacketDistributor::playerListPointConsumer, PacketDistributor::playerListPointConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to everyone
 	 * <br/>
 	 * {@link #noArg()}
 	 */
-	public static final PacketDistributor<Void> ALL = new PacketDistributor<>(PacketDistributor::playerListAll, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<Void> ALL = new PacketDistributor<>(PacketDistributor::playerListAll, PacketDistributor::playerListAllConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to the server (CLIENT to SERVER)
 	 * <br/>
 	 * {@link #noArg()}
 	 */
-	public static final PacketDistributor<Void> SERVER = new PacketDistributor<>(PacketDistributor::clientToServer, NetworkDirection.PLAY_TO_SERVER);
+	public static final PacketDistributor<Void> SERVER = new PacketDistributor<>(PacketDistributor::clientToServer, PacketDistributor::clientToServerConnection, NetworkDirection.PLAY_TO_SERVER);
 	/**
 	 * Send to all tracking the Entity in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} Entity
 	 */
-	public static final PacketDistributor<Entity> TRACKING_ENTITY = new PacketDistributor<>(PacketDistributor::trackingEntity, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<Entity> TRACKING_ENTITY = new PacketDistributor<>(PacketDistributor::trackingEntity, PacketDistributor::trackingEntityConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to all tracking the Entity and Player in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} Entity
 	 */
-	public static final PacketDistributor<Entity> TRACKING_ENTITY_AND_SELF = new PacketDistributor<>(PacketDistributor::trackingEntityAndSelf, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<Entity> TRACKING_ENTITY_AND_SELF = new PacketDistributor<>(PacketDistributor::trackingEntityAndSelf, PacketDistributor::trackingEntityAndSelfConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to all tracking the Chunk in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} Chunk
 	 */
-	public static final PacketDistributor<WorldChunk> TRACKING_CHUNK = new PacketDistributor<>(PacketDistributor::trackingChunk, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<WorldChunk> TRACKING_CHUNK = new PacketDistributor<>(PacketDistributor::trackingChunk, PacketDistributor::trackingChunkConnections, NetworkDirection.PLAY_TO_CLIENT);
 	/**
 	 * Send to the supplied list of NetworkManager instances in the Supplier
 	 * <br/>
 	 * {@link #with(Supplier)} List of NetworkManager
 	 */
-	public static final PacketDistributor<List<ClientConnection>> NMLIST = new PacketDistributor<>(PacketDistributor::networkManagerList, NetworkDirection.PLAY_TO_CLIENT);
+	public static final PacketDistributor<List<ClientConnection>> NMLIST = new PacketDistributor<>(PacketDistributor::networkManagerList, PacketDistributor::networkManagerListConnections, NetworkDirection.PLAY_TO_CLIENT);
 
 	public static final class TargetPoint {
 
@@ -169,15 +172,49 @@ public class PacketDistributor<T> {
 	 */
 	public static class PacketTarget {
 		private final Consumer<Packet<?>> packetConsumer;
+		@Nullable
+		private final Consumer<Consumer<ClientConnection>> connections;
 		private final PacketDistributor<?> distributor;
 
-		PacketTarget(final Consumer<Packet<?>> packetConsumer, final PacketDistributor<?> distributor) {
+		PacketTarget(final Consumer<Packet<?>> packetConsumer, @Nullable final Consumer<Consumer<ClientConnection>> connections, final PacketDistributor<?> distributor) {
 			this.packetConsumer = packetConsumer;
+			this.connections = connections;
 			this.distributor = distributor;
 		}
 
+		/**
+		 * Send the packet to every target. Clientbound custom payloads going to several connections are encoded once
+		 * and the encoded bytes shared between them.
+		 *
+		 * @param packet the packet to send
+		 */
 		public void send(Packet<?> packet) {
-			packetConsumer.accept(packet);
+			if (connections != null && getDirection() == NetworkDirection.PLAY_TO_CLIENT && packet instanceof ICustomPacket) {
+				PacketFanout.send((ICustomPacket<?>) packet, connections);
+			} else {
+				packetConsumer.accept(packet);
+			}
+		}
+
+		/**
+		 * @return true if {@link #forEachConnection(Consumer)} can list the connections this target sends to
+		 */
+		public boolean hasConnections() {
+			return connections != null;
+		}
+
+		/**
+		 * Visit every connection this target would send a packet to.
+		 *
+		 * @param action called once per target connection
+		 * @return false, without visiting anything, if this distributor cannot list its connections
+		 */
+		public boolean forEachConnection(Consumer<ClientConnection> action) {
+			if (connections == null) {
+				return false;
+			}
+			connections.accept(action);
+			return true;
 		}
 
 		public NetworkDirection getDirection() {
@@ -187,10 +224,22 @@ public class PacketDistributor<T> {
 	}
 
 	private final BiFunction<PacketDistributor<T>, Supplier<T>, Consumer<Packet<?>>> functor;
+	@Nullable
+	private final BiFunction<PacketDistributor<T>, Supplier<T>, Consumer<Consumer<ClientConnection>>> connectionFunctor;
 	private final NetworkDirection direction;
 
 	public PacketDistributor(BiFunction<PacketDistributor<T>, Supplier<T>, Consumer<Packet<?>>> functor, NetworkDirection direction) {
+		this(functor, null, direction);
+	}
+
+	/**
+	 * @param functor sends a packet to every target
+	 * @param connectionFunctor visits every target connection, letting channels do per connection work such as batching
+	 * @param direction the direction packets are sent in
+	 */
+	public PacketDistributor(BiFunction<PacketDistributor<T>, Supplier<T>, Consumer<Packet<?>>> functor, @Nullable BiFunction<PacketDistributor<T>, Supplier<T>, Consumer<Consumer<ClientConnection>>> connectionFunctor, NetworkDirection direction) {
 		this.functor = functor;
+		this.connectionFunctor = connectionFunctor;
 		this.direction = direction;
 	}
 
@@ -200,7 +249,7 @@ public class PacketDistributor<T> {
 	 * @return A curried instance
 	 */
 	public PacketTarget with(Supplier<T> input) {
-		return new PacketTarget(functor.apply(this, input), this);
+		return new PacketTarget(functor.apply(this, input), connectionFunctor == null ? null : connectionFunctor.apply(this, input), this);
 	}
 
 	/**
@@ -211,7 +260,7 @@ public class PacketDistributor<T> {
 	 * @return A curried instance
 	 */
 	public PacketTarget noArg() {
-		return new PacketTarget(functor.apply(this, () -> null), this);
+		return new PacketTarget(functor.apply(this, () -> null), connectionFunctor == null ? null : connectionFunctor.apply(this, () -> null), this);
 	}
 
 	private Consumer<Packet<?>> playerConsumer(final Supplier<ServerPlayerEntity> entityPlayerMPSupplier) {
@@ -262,6 +311,81 @@ public class PacketDistributor<T> {
 		return p -> nmListSupplier.get().forEach(nm -> nm.send(p));
 	}
 
+	private Consumer<Consumer<ClientConnection>> playerConnections(final Supplier<ServerPlayerEntity> entityPlayerMPSupplier) {
+		return c -> c.accept(entityPlayerMPSupplier.get().networkHandler.connection);
+	}
+
+	private Consumer<Consumer<ClientConnection>> playerListDimConnections(final Supplier<RegistryKey<World>> dimensionTypeSupplier) {
+		return c -> {
+			final RegistryKey<World> dim = dimensionTypeSupplier.get();
+			for (ServerPlayerEntity player : getServer().getPlayerManager().getPlayerList()) {
+				if (player.world.getRegistryKey() == dim) {
+					c.accept(player.networkHandler.connection);
+				}
+			}
+		};
+	}
+
+	private Consumer<Consumer<ClientConnection>> playerListAllConnections(final Supplier<Void> voidSupplier) {
+		return c -> getServer().getPlayerManager().getPlayerList().forEach(player -> c.accept(player.networkHandler.connection));
+	}
+
+	private Consumer<Consumer<ClientConnection>> clientToServerConnection(final Supplier<Void> voidSupplier) {
+		return c -> c.accept(MinecraftClient.getInstance().getNetworkHandler().getConnection());
+	}
+
+	// Mirrors PlayerManager.sendToAround, which treats the distance as a radius
+	private Consumer<Consumer<ClientConnection>> playerListPointConnections(final Supplier<TargetPoint> targetPointSupplier) {
+		return c -> {
+			final TargetPoint tp = targetPointSupplier.get();
+			for (ServerPlayerEntity player : getServer().getPlayerManager().getPlayerList()) {
+				if (player != tp.excluded && player.world.getRegistryKey() == tp.dim) {
+					double dx = tp.x - player.getX();
+					double dy = tp.y - player.getY();
+					double dz = tp.z - player.getZ();
+					if (dx * dx + dy * dy + dz * dz < tp.r2 * tp.r2) {
+						c.accept(player.networkHandler.connection);
+					}
+				}
+			}
+		};
+	}
+
+	private Consumer<Consumer<ClientConnection>> trackingEntityConnections(final Supplier<Entity> entitySupplier) {
+		return c -> forEachTrackingPlayer(entitySupplier.get(), player -> c.accept(player.networkHandler.connection));
+	}
+
+	private Consumer<Consumer<ClientConnection>> trackingEntityAndSelfConnections(final Supplier<Entity> entitySupplier) {
+		return c -> {
+			final Entity entity = entitySupplier.get();
+			forEachTrackingPlayer(entity, player -> c.accept(player.networkHandler.connection));
+			if (entity instanceof ServerPlayerEntity) {
+				c.accept(((ServerPlayerEntity) entity).networkHandler.connection);
+			}
+		};
+	}
+
+	// Matches ServerChunkManager.sendToOtherNearbyPlayers, which only exposes sending to the tracking players.
+	// The tracker map and player set are made public by the access transformer.
+	private static void forEachTrackingPlayer(final Entity entity, final Consumer<ServerPlayerEntity> action) {
+		final ThreadedAnvilChunkStorage storage = ((ServerChunkManager) entity.getEntityWorld().getChunkManager()).threadedAnvilChunkStorage;
+		final ThreadedAnvilChunkStorage.EntityTracker tracker = storage.entityTrackers.get(entity.getEntityId());
+		if (tracker != null) {
+			tracker.playersTracking.forEach(action);
+		}
+	}
+
+	private Consumer<Consumer<ClientConnection>> trackingChunkConnections(final Supplier<WorldChunk> chunkPosSupplier) {
+		return c -> {
+			final WorldChunk chunk = chunkPosSupplier.get();
+			((ServerChunkManager) chunk.getWorld().getChunkManager()).threadedAnvilChunkStorage.getPlayersWatchingChunk(chunk.getPos(), false).forEach(e -> c.accept(e.networkHandler.connection));
+		};
+	}
+
+	private Consumer<Consumer<ClientConnection>> networkManagerListConnections(final Supplier<List<ClientConnection>> nmListSupplier) {
+		return c -> nmListSupplier.get().forEach(c);
+	}
+
 	private MinecraftServer getServer() {
 		return LogicalSidedProvider.INSTANCE.get(LogicalSide.SERVER);
 	}
@@ -0,0 +1,116 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.NetworkSide;
+import net.minecraft.network.NetworkState;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.listener.PacketListener;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sends one clientbound custom payload to many connections, encoding it only once.
+ *
+ * <p>The packet id and body are written into a single buffer, which each remote connection writes through
+ * {@link ClientConnection#sendEncoded}, in order with its other packets. Netty passes the buffer straight past the
+ * vanilla packet encoder, so only the per connection compression and encryption stages still run for every player.
+ * Local and not yet playing connections are sent the packet object through the player's network handler, as the
+ * distributors do.</p>
+ *
+ * <p>Only custom payloads are pre-encoded. Other packets must go through
+ * {@link ServerPlayNetworkHandler#sendPacket}, which filters chat and reports encoding failures.</p>
+ */
+class PacketFanout {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	static void send(ICustomPacket<?> payload, Consumer<Consumer<ClientConnection>> connections) {
+		final Packet<?> packet = payload.getThis();
+		final List<ClientConnection> targets = new ArrayList<>();
+		connections.accept(targets::add);
+		if (targets.size() < 2) {
+			targets.forEach(connection -> sendPacket(connection, packet));
+			return;
+		}
+		final int payloadSize = NetworkMetrics.size(payload);
+		ByteBuf encoded = null;
+		boolean encodable = true;
+		try {
+			for (ClientConnection connection : targets) {
+				final boolean direct = encodable && canSendEncoded(connection);
+				if (direct && encoded == null) {
+					encoded = encode(packet, connection.channel());
+					encodable = encoded != null;
+				}
+				if (direct && encoded != null && connection.sendEncoded(encoded, NetworkState.PLAY)) {
+					// The traffic counter only sees packet objects, so count the bytes written around it here
+					NetworkMetrics.recordSent(payload.getName(), payload.getDirection(), payloadSize);
+				} else {
+					sendPacket(connection, packet);
+				}
+			}
+		} finally {
+			if (encoded != null) {
+				encoded.release();
+			}
+		}
+	}
+
+	private static void sendPacket(ClientConnection connection, Packet<?> packet) {
+		final PacketListener listener = connection.getPacketListener();
+		if (listener instanceof ServerPlayNetworkHandler) {
+			((ServerPlayNetworkHandler) listener).sendPacket(packet);
+		} else {
+			connection.send(packet);
+		}
+	}
+
+	private static boolean canSendEncoded(ClientConnection connection) {
+		// sendEncoded checks the connection is open and playing
+		return !connection.isLocal() && connection.channel().pipeline().get("encoder") != null;
+	}
+
+	private static ByteBuf encode(Packet<?> packet, Channel channel) {
+		final Integer id = NetworkState.PLAY.getPacketId(NetworkSide.CLIENTBOUND, packet);
+		if (id == null) {
+			return null;
+		}
+		final PacketByteBuf buf = new PacketByteBuf(channel.alloc().buffer());
+		try {
+			buf.writeVarInt(id);
+			packet.write(buf);
+			return buf;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.debug("Unable to pre-encode {}, sending it to each connection instead", packet.getClass().getName(), e);
+			buf.release();
+			return null;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.util.Identifier;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.registries.ForgeRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static net.minecraftforge.fml.network.FMLHandshakeHandler.FMLHSMARKER;
+
+/**
+ * Client side store of the registry snapshots last received from a server.
+ *
+ * <p>Snapshots are kept per server address under {@code registrycache/} in the game directory, one file per registry at
+ * {@code <namespace>/<path>.dat}, see {@link #relativePath(Identifier)}. During the handshake the client advertises the
+ * hash of each cached snapshot in {@link FMLHandshakeMessages.C2SModListReply}, and the server replies with a short
+ * {@link FMLHandshakeMessages.S2CRegistry} for any registry whose hash still matches.
+ */
+class RegistrySnapshotCache {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final String CACHE_VERSION = "2";
+
+	private final Path directory;
+	private final Map<Identifier, ForgeRegistry.Snapshot> snapshots = new HashMap<>();
+
+	private RegistrySnapshotCache(Path directory) {
+		this.directory = directory;
+	}
+
+	static RegistrySnapshotCache forServer(ClientConnection manager) {
+		String key = Hashing.sha256().hashString(CACHE_VERSION + manager.getAddress(), StandardCharsets.UTF_8).toString();
+		return new RegistrySnapshotCache(FMLPaths.GAMEDIR.get().resolve("registrycache").resolve(key));
+	}
+
+	/**
+	 * Load the cached snapshots for the requested registries.
+	 *
+	 * @param registries the registries the server announced
+	 * @return the hash of each snapshot that could be loaded, keyed by registry name
+	 */
+	Map<Identifier, String> load(Collection<Identifier> registries) {
+		Map<Identifier, String> hashes = new HashMap<>();
+		for (Identifier name : registries) {
+			File file = fileFor(name);
+			if (!file.isFile()) {
+				continue;
+			}
+			try {
+				ForgeRegistry.Snapshot snapshot = ForgeRegistry.Snapshot.read(NbtIo.readCompressed(file));
+				snapshots.put(name, snapshot);
+				hashes.put(name, snapshot.getPacketHash());
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn(FMLHSMARKER, "Ignoring unreadable cached registry snapshot {}", file, e);
+			}
+		}
+		LOGGER.debug(FMLHSMARKER, "Loaded {} cached registry snapshots from {}", snapshots.size(), directory);
+		return hashes;
+	}
+
+	/**
+	 * Look up a cached snapshot, provided it still matches the hash the server expects us to have.
+	 */
+	@Nullable
+	ForgeRegistry.Snapshot get(Identifier name, String hash) {
+		ForgeRegistry.Snapshot snapshot = snapshots.get(name);
+		return snapshot != null && snapshot.getPacketHash().equals(hash) ? snapshot : null;
+	}
+
+	/**
+	 * Write freshly received snapshots to disk, off the network thread. Failures only cost a full transfer next time.
+	 */
+	void store(Map<Identifier, ForgeRegistry.Snapshot> received) {
+		if (received.isEmpty()) {
+			return;
+		}
+		Map<Identifier, CompoundTag> data = new HashMap<>();
+		received.forEach((name, snapshot) -> data.put(name, snapshot.write()));
+		CompletableFuture.runAsync(() -> {
+			try {
+				for (Map.Entry<Identifier, CompoundTag> e : data.entrySet()) {
+					File target = fileFor(e.getKey());
+					Files.createDirectories(target.toPath().getParent());
+					File temp = new File(target.getPath() + ".tmp");
+					NbtIo.writeCompressed(e.getValue(), temp);
+					Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				LOGGER.debug(FMLHSMARKER, "Cached {} registry snapshots in {}", data.size(), directory);
+			} catch (IOException e) {
+				LOGGER.warn(FMLHSMARKER, "Failed to cache registry snapshots in {}", directory, e);
+			}
+		});
+	}
+
+	private File fileFor(Identifier name) {
+		return directory.resolve(relativePath(name)).toFile();
+	}
+
+	/**
+	 * Maps a registry name to its file below the cache directory, a directory per namespace and per path segment.
+	 *
+	 * <p>The mapping is injective and never leaves the cache directory. Dots are escaped, as they would allow {@code .}
+	 * and {@code ..} segments and Windows drops trailing dots, and an empty segment becomes a lone {@code %}. Neither
+	 * {@code %} nor {@code /} can occur in a registry name otherwise.</p>
+	 */
+	static String relativePath(Identifier name) {
+		StringBuilder path = new StringBuilder(escapeSegment(name.getNamespace()));
+		for (String segment : name.getPath().split("/", -1)) {
+			path.append('/').append(escapeSegment(segment));
+		}
+		return path.append(".dat").toString();
+	}
+
+	private static String escapeSegment(String segment) {
+		return segment.isEmpty() ? "%" : segment.replace(".", "%2e");
+	}
+}
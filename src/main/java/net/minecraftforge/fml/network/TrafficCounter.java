@@ -0,0 +1,62 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import net.minecraft.network.ClientConnection;
+
+/**
+ * Feeds the custom payloads a connection reads and writes into {@link NetworkMetrics}.
+ */
+class TrafficCounter extends ChannelDuplexHandler {
+	private static final String NAME = "forge:traffic_counter";
+
+	private final ClientConnection connection;
+
+	private TrafficCounter(ClientConnection connection) {
+		this.connection = connection;
+	}
+
+	static void install(ClientConnection manager) {
+		final ChannelPipeline pipeline = manager.channel().pipeline();
+		if (pipeline.get(NAME) == null && pipeline.get("packet_handler") != null) {
+			pipeline.addBefore("packet_handler", NAME, new TrafficCounter(manager));
+		}
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof ICustomPacket) {
+			NetworkMetrics.recordReceived((ICustomPacket<?>) msg, connection);
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (msg instanceof ICustomPacket) {
+			NetworkMetrics.recordSent((ICustomPacket<?>) msg);
+		}
+		ctx.write(msg, promise);
+	}
+}
@@ -25,13 +25,17 @@ import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import io.netty.buffer.Unpooled;
 import it.unimi.dsi.fastutil.objects.Object2ObjectArrayMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectArrayMap;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.thread.ThreadExecutor;
+import net.minecraftforge.fml.LogicalSidedProvider;
 import net.minecraftforge.fml.network.NetworkDirection;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.minecraftforge.fml.network.NetworkHooks;
 import net.minecraftforge.fml.network.NetworkInstance;
+import net.minecraftforge.fml.network.NetworkMetrics;
 import net.minecraftforge.fml.network.simple.IndexedMessageCodec.MessageHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,9 +45,21 @@ import org.apache.logging.log4j.MarkerManager;
 public class IndexedMessageCodec {
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final Marker SIMPLENET = MarkerManager.getMarker("SIMPLENET");
+	/**
+	 * Discriminator reserved for batches of messages once {@link SimpleChannel#enableMessageBatching()} is called.
+	 */
+	static final short BATCH_INDEX = 0xff;
+	/**
+	 * Discriminator reserved for fragments of split messages once {@link SimpleChannel#enableMessageSplitting()} is called.
+	 */
+	static final short SPLIT_INDEX = 0xfe;
 	private final Short2ObjectArrayMap<MessageHandler<?>> indicies = new Short2ObjectArrayMap<>();
 	private final Object2ObjectArrayMap<Class<?>, MessageHandler<?>> types = new Object2ObjectArrayMap<>();
 	private final NetworkInstance networkInstance;
+	private final NetworkMetrics.ChannelStats stats;
+	private boolean batching;
+	private MessageSplitter splitter;
+	private volatile boolean queueing;
 
 	public IndexedMessageCodec() {
 		this(null);
@@ -51,6 +67,7 @@ public class IndexedMessageCodec {
 
 	public IndexedMessageCodec(final NetworkInstance instance) {
 		this.networkInstance = instance;
+		this.stats = instance == null ? null : NetworkMetrics.channel(instance.getChannelName());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -73,6 +90,7 @@ public class IndexedMessageCodec {
 		private final Optional<NetworkDirection> networkDirection;
 		private Optional<BiConsumer<MSG, Integer>> loginIndexSetter;
 		private Optional<Function<MSG, Integer>> loginIndexGetter;
+		private boolean networkThreadDecode;
 
 		public MessageHandler(int index, Class<MSG> messageType, BiConsumer<MSG, PacketByteBuf> encoder, Function<PacketByteBuf, MSG> decoder, BiConsumer<MSG, Supplier<NetworkEvent.Context>> messageConsumer, final Optional<NetworkDirection> networkDirection) {
 			this.index = index;
@@ -103,6 +121,36 @@ public class IndexedMessageCodec {
 			return this.loginIndexGetter;
 		}
 
+		void setNetworkThreadDecode() {
+			this.networkThreadDecode = true;
+		}
+
+		MSG decode(Function<PacketByteBuf, MSG> decoder, PacketByteBuf payload) {
+			if (stats == null) {
+				return decoder.apply(payload);
+			}
+			// Count the discriminator byte already read
+			final int bytes = payload.readableBytes() + 1;
+			if (!NetworkMetrics.sample()) {
+				stats.message(index).recordDecode(bytes, -1);
+				return decoder.apply(payload);
+			}
+			final long start = System.nanoTime();
+			final MSG msg = decoder.apply(payload);
+			stats.message(index).recordDecode(bytes, System.nanoTime() - start);
+			return msg;
+		}
+
+		void encode(BiConsumer<MSG, PacketByteBuf> encoder, MSG message, PacketByteBuf target) {
+			final int start = target.writerIndex();
+			final long startTime = stats != null && NetworkMetrics.sample() ? System.nanoTime() : -1;
+			target.writeByte(index & 0xff);
+			encoder.accept(message, target);
+			if (stats != null) {
+				stats.message(index).recordEncode(target.writerIndex() - start, startTime < 0 ? -1 : System.nanoTime() - startTime);
+			}
+		}
+
 		MSG newInstance() {
 			try {
 				return messageType.newInstance();
@@ -114,7 +162,7 @@ public class IndexedMessageCodec {
 	}
 
 	private static <M> void tryDecode(PacketByteBuf payload, Supplier<NetworkEvent.Context> context, int payloadIndex, MessageHandler<M> codec) {
-		codec.decoder.map(d -> d.apply(payload)).
+		codec.decoder.map(d -> codec.decode(d, payload)).
 			map(p -> {
 				// Only run the loginIndex function for payloadIndexed packets (login)
 				if (payloadIndex != Integer.MIN_VALUE) {
@@ -124,11 +172,19 @@ public class IndexedMessageCodec {
 			}).ifPresent(m -> codec.messageConsumer.accept(m, context));
 	}
 
+	private static <M> void tryDecodeQueued(PacketByteBuf payload, Supplier<NetworkEvent.Context> context, MessageHandler<M> codec) {
+		final MessageQueue queue = MessageQueue.of(context.get());
+		if (codec.networkThreadDecode) {
+			codec.decoder.map(d -> codec.decode(d, payload)).ifPresent(m -> queue.add(() -> codec.messageConsumer.accept(m, context)));
+		} else {
+			// The payload belongs to the network thread, so keep a private copy to decode later
+			final PacketByteBuf copy = new PacketByteBuf(Unpooled.copiedBuffer(payload));
+			queue.add(() -> tryDecode(copy, context, Integer.MIN_VALUE, codec));
+		}
+	}
+
 	private static <M> int tryEncode(PacketByteBuf target, M message, MessageHandler<M> codec) {
-		codec.encoder.ifPresent(encoder -> {
-			target.writeByte(codec.index & 0xff);
-			encoder.accept(message, target);
-		});
+		codec.encoder.ifPresent(encoder -> codec.encode(encoder, message, target));
 		return codec.loginIndexGetter.orElse(m -> Integer.MIN_VALUE).apply(message);
 	}
 
@@ -148,16 +204,103 @@ public class IndexedMessageCodec {
 			return;
 		}
 		short discriminator = payload.readUnsignedByte();
+		if (batching && discriminator == BATCH_INDEX && payloadIndex == Integer.MIN_VALUE) {
+			consumeBatch(payload, context);
+			return;
+		}
+		if (splitter != null && discriminator == SPLIT_INDEX && payloadIndex == Integer.MIN_VALUE) {
+			consumeFragment(payload, context);
+			return;
+		}
+		consumeMessage(discriminator, payload, payloadIndex, context);
+	}
+
+	private void consumeBatch(PacketByteBuf payload, Supplier<NetworkEvent.Context> context) {
+		while (payload.isReadable()) {
+			int length = payload.readVarInt();
+			if (length < 1 || length > payload.readableBytes()) {
+				LOGGER.error(SIMPLENET, "Received truncated message batch on channel {}", Optional.ofNullable(networkInstance).map(NetworkInstance::getChannelName).map(Objects::toString).orElse("MISSING CHANNEL"));
+				return;
+			}
+			PacketByteBuf message = new PacketByteBuf(payload.readSlice(length));
+			short discriminator = message.readUnsignedByte();
+			if (discriminator == BATCH_INDEX) {
+				LOGGER.error(SIMPLENET, "Received nested message batch on channel {}", Optional.ofNullable(networkInstance).map(NetworkInstance::getChannelName).map(Objects::toString).orElse("MISSING CHANNEL"));
+				return;
+			}
+			if (splitter != null && discriminator == SPLIT_INDEX) {
+				consumeFragment(message, context);
+			} else {
+				consumeMessage(discriminator, message, Integer.MIN_VALUE, context);
+			}
+		}
+	}
+
+	private void consumeFragment(PacketByteBuf fragment, Supplier<NetworkEvent.Context> context) {
+		final PacketByteBuf message = splitter.receive(fragment, context.get().getNetworkManager());
+		if (message == null) {
+			return;
+		}
+		try {
+			short discriminator = message.readUnsignedByte();
+			if (discriminator == BATCH_INDEX || discriminator == SPLIT_INDEX) {
+				LOGGER.error(SIMPLENET, "Received nested split message on channel {}", Optional.ofNullable(networkInstance).map(NetworkInstance::getChannelName).map(Objects::toString).orElse("MISSING CHANNEL"));
+				return;
+			}
+			consumeMessage(discriminator, message, Integer.MIN_VALUE, context);
+		} finally {
+			message.release();
+		}
+	}
+
+	private void consumeMessage(short discriminator, PacketByteBuf payload, int payloadIndex, Supplier<NetworkEvent.Context> context) {
 		final MessageHandler<?> messageHandler = indicies.get(discriminator);
 		if (messageHandler == null) {
 			LOGGER.error(SIMPLENET, "Received invalid discriminator byte {} on channel {}", discriminator, Optional.ofNullable(networkInstance).map(NetworkInstance::getChannelName).map(Objects::toString).orElse("MISSING CHANNEL"));
 			return;
 		}
 		NetworkHooks.validatePacketDirection(context.get().getDirection(), messageHandler.networkDirection, context.get().getNetworkManager());
-		tryDecode(payload, context, payloadIndex, messageHandler);
+		if (queueing && payloadIndex == Integer.MIN_VALUE && !isOnMainThread(context.get())) {
+			tryDecodeQueued(payload, context, messageHandler);
+		} else {
+			tryDecode(payload, context, payloadIndex, messageHandler);
+		}
+	}
+
+	private static boolean isOnMainThread(NetworkEvent.Context context) {
+		final ThreadExecutor<?> executor = LogicalSidedProvider.WORKQUEUE.get(context.getDirection().getReceptionSide());
+		return executor.isOnThread();
+	}
+
+	void enableQueueing() {
+		this.queueing = true;
+	}
+
+	void enableBatching() {
+		if (indicies.containsKey(BATCH_INDEX)) {
+			throw new IllegalStateException("Message index " + BATCH_INDEX + " is reserved for batches but already has a message registered");
+		}
+		this.batching = true;
+	}
+
+	boolean isBatching() {
+		return batching;
+	}
+
+	void enableSplitting(MessageSplitter splitter) {
+		if (indicies.containsKey(SPLIT_INDEX)) {
+			throw new IllegalStateException("Message index " + SPLIT_INDEX + " is reserved for split messages but already has a message registered");
+		}
+		this.splitter = splitter;
 	}
 
 	<MSG> MessageHandler<MSG> addCodecIndex(int index, Class<MSG> messageType, BiConsumer<MSG, PacketByteBuf> encoder, Function<PacketByteBuf, MSG> decoder, BiConsumer<MSG, Supplier<NetworkEvent.Context>> messageConsumer, final Optional<NetworkDirection> networkDirection) {
+		if (batching && (index & 0xff) == BATCH_INDEX) {
+			throw new IllegalArgumentException("Message index " + BATCH_INDEX + " is reserved for batches on this channel");
+		}
+		if (splitter != null && (index & 0xff) == SPLIT_INDEX) {
+			throw new IllegalArgumentException("Message index " + SPLIT_INDEX + " is reserved for split messages on this channel");
+		}
 		return new MessageHandler<>(index, messageType, encoder, decoder, messageConsumer, networkDirection);
 	}
 }
@@ -0,0 +1,216 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network.simple;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+import net.minecraftforge.fml.network.NetworkDirection;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Coalesces the play messages a {@link SimpleChannel} sends to each connection during a tick into one custom
+ * payload packet, flushed at the end of the tick.
+ *
+ * <p>A batch is the {@link IndexedMessageCodec#BATCH_INDEX} discriminator followed by each encoded message prefixed
+ * with its length as a VarInt. Batches are split before they would exceed the vanilla custom payload limit for their
+ * direction, and a batch holding a single message is sent as that plain message.</p>
+ *
+ * <p>Messages the channel sends to a connection without batching, such as replies, first flush that connection's
+ * pending batch so they can't overtake it.</p>
+ */
+public class MessageBatcher {
+	// Only batchers holding pending batches, so neither channels nor connections are kept alive between ticks
+	private static final Set<MessageBatcher> PENDING = ConcurrentHashMap.newKeySet();
+	private static final int MAX_CLIENTBOUND_PAYLOAD = 1048576;
+	private static final int MAX_SERVERBOUND_PAYLOAD = 32767;
+
+	private final Identifier channelName;
+	private final Map<ClientConnection, Batch> batches = new IdentityHashMap<>();
+
+	MessageBatcher(Identifier channelName) {
+		this.channelName = channelName;
+	}
+
+	/**
+	 * Send every pending batch travelling in the given direction. Called at the end of each server tick for
+	 * {@link NetworkDirection#PLAY_TO_CLIENT} and each client tick for {@link NetworkDirection#PLAY_TO_SERVER}.
+	 *
+	 * @param direction the direction to flush
+	 */
+	public static void flushAll(NetworkDirection direction) {
+		for (MessageBatcher batcher : PENDING) {
+			batcher.flush(direction);
+		}
+	}
+
+	/**
+	 * Queue an encoded message, discriminator included, for the connection.
+	 *
+	 * @param connection the connection to send to
+	 * @param direction the direction the message travels in
+	 * @param message the encoded message; only read, so it may be shared between connections
+	 */
+	void queue(ClientConnection connection, NetworkDirection direction, PacketByteBuf message) {
+		final int length = message.readableBytes();
+		final int limit = payloadLimit(direction);
+		Batch full = null;
+		boolean direct = false;
+		synchronized (this) {
+			Batch batch = batches.get(connection);
+			if (1 + varIntSize(length) + length > limit) {
+				// Sent on its own, after whatever is already pending
+				direct = true;
+				full = batches.remove(connection);
+			} else {
+				if (batch != null && batch.size() + varIntSize(length) + length > limit) {
+					full = batches.remove(connection);
+					batch = null;
+				}
+				if (batch == null) {
+					batch = new Batch(direction);
+					batches.put(connection, batch);
+				}
+				batch.add(message, length);
+			}
+			updatePending();
+		}
+		if (full != null) {
+			send(connection, full);
+		}
+		if (direct) {
+			sendPayload(connection, direction, new PacketByteBuf(message.slice()));
+		}
+	}
+
+	/**
+	 * Send every pending batch travelling in the given direction now.
+	 *
+	 * @param direction the direction to flush
+	 */
+	void flush(NetworkDirection direction) {
+		final List<Pair<ClientConnection, Batch>> pending = new ArrayList<>();
+		synchronized (this) {
+			if (batches.isEmpty()) {
+				return;
+			}
+			for (Iterator<Map.Entry<ClientConnection, Batch>> it = batches.entrySet().iterator(); it.hasNext(); ) {
+				Map.Entry<ClientConnection, Batch> entry = it.next();
+				if (entry.getValue().direction == direction) {
+					pending.add(Pair.of(entry.getKey(), entry.getValue()));
+					it.remove();
+				}
+			}
+			updatePending();
+		}
+		pending.forEach(p -> send(p.getLeft(), p.getRight()));
+	}
+
+	/**
+	 * Send the connection's pending batch now, if it has one.
+	 *
+	 * @param connection the connection to flush
+	 */
+	void flush(ClientConnection connection) {
+		final Batch batch;
+		synchronized (this) {
+			batch = batches.remove(connection);
+			updatePending();
+		}
+		if (batch != null) {
+			send(connection, batch);
+		}
+	}
+
+	// Callers hold this batcher's lock
+	private void updatePending() {
+		if (batches.isEmpty()) {
+			PENDING.remove(this);
+		} else {
+			PENDING.add(this);
+		}
+	}
+
+	private void send(ClientConnection connection, Batch batch) {
+		if (connection.isOpen()) {
+			sendPayload(connection, batch.direction, batch.payload());
+		}
+	}
+
+	private void sendPayload(ClientConnection connection, NetworkDirection direction, PacketByteBuf payload) {
+		connection.send(direction.buildPacket(Pair.of(payload, Integer.MIN_VALUE), channelName).getThis());
+	}
+
+	/**
+	 * @return the largest custom payload vanilla accepts in the direction
+	 */
+	static int payloadLimit(NetworkDirection direction) {
+		return direction == NetworkDirection.PLAY_TO_CLIENT ? MAX_CLIENTBOUND_PAYLOAD : MAX_SERVERBOUND_PAYLOAD;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & -128) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static class Batch {
+		private final NetworkDirection direction;
+		private final PacketByteBuf buffer;
+		private int count;
+		private int firstStart;
+		private int firstLength;
+
+		Batch(NetworkDirection direction) {
+			this.direction = direction;
+			this.buffer = new PacketByteBuf(Unpooled.buffer());
+			this.buffer.writeByte(IndexedMessageCodec.BATCH_INDEX);
+		}
+
+		int size() {
+			return buffer.writerIndex();
+		}
+
+		void add(PacketByteBuf message, int length) {
+			buffer.writeVarInt(length);
+			if (count++ == 0) {
+				firstStart = buffer.writerIndex();
+				firstLength = length;
+			}
+			buffer.writeBytes(message, message.readerIndex(), length);
+		}
+
+		PacketByteBuf payload() {
+			return count == 1 ? new PacketByteBuf(buffer.slice(firstStart, firstLength)) : buffer;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network.simple;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import net.minecraft.network.ClientConnection;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.network.NetworkEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+/**
+ * Holds the messages a connection received on its network thread until the main thread handles them.
+ *
+ * <p>Every connection has one queue shared by all channels, so messages are handled in the order they arrived. Once per
+ * tick the main thread takes one message from each connection in turn until the queues are empty or the tick's time
+ * budget is spent, so one busy connection cannot starve the others. A connection whose queue reaches its capacity stops
+ * reading from the network until the main thread catches up.</p>
+ *
+ * <p>A handler that throws ends the connection through netty's exception handling, as it would have done had the
+ * message been handled as it was read. The rest of that connection's queue is dropped.</p>
+ */
+public class MessageQueue {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Marker SIMPLENET = MarkerManager.getMarker("SIMPLENET");
+	private static final AttributeKey<MessageQueue> QUEUE = AttributeKey.valueOf("fml:message_queue");
+	private static final List<MessageQueue> QUEUES = new CopyOnWriteArrayList<>();
+	static final int CAPACITY = Integer.getInteger("forge.network.messageQueueCapacity", 1024);
+	private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("forge.network.messageQueueBudgetMs", 10));
+
+	private final ClientConnection connection;
+	private final LogicalSide side;
+	private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile boolean paused;
+	private boolean failed;
+
+	private MessageQueue(ClientConnection connection, LogicalSide side) {
+		this.connection = connection;
+		this.side = side;
+	}
+
+	static MessageQueue of(NetworkEvent.Context context) {
+		return of(context.getNetworkManager(), context.getDirection().getReceptionSide());
+	}
+
+	static MessageQueue of(ClientConnection connection, LogicalSide side) {
+		final Channel channel = connection.channel();
+		MessageQueue queue = channel.attr(QUEUE).get();
+		if (queue == null) {
+			final MessageQueue created = new MessageQueue(connection, side);
+			queue = channel.attr(QUEUE).setIfAbsent(created);
+			if (queue == null) {
+				queue = created;
+				QUEUES.add(created);
+			}
+		}
+		return queue;
+	}
+
+	void add(Runnable message) {
+		messages.add(message);
+		if (size.incrementAndGet() >= CAPACITY && !paused) {
+			paused = true;
+			connection.channel().config().setAutoRead(false);
+		}
+	}
+
+	/**
+	 * Handle queued messages for the connections on one side, within the per tick time budget. Called at the end of
+	 * each server tick for {@link LogicalSide#SERVER} and each client tick for {@link LogicalSide#CLIENT}.
+	 *
+	 * @param side the side whose connections to drain
+	 */
+	public static void drainAll(LogicalSide side) {
+		if (QUEUES.isEmpty()) {
+			return;
+		}
+		final long deadline = System.nanoTime() + BUDGET_NANOS;
+		boolean progress = true;
+		while (progress && System.nanoTime() < deadline) {
+			progress = false;
+			for (MessageQueue queue : QUEUES) {
+				if (queue.side == side && queue.runOne()) {
+					progress = true;
+				}
+			}
+		}
+		for (MessageQueue queue : QUEUES) {
+			if (queue.side == side) {
+				queue.afterDrain();
+			}
+		}
+	}
+
+	private boolean runOne() {
+		final Runnable message = messages.poll();
+		if (message == null) {
+			return false;
+		}
+		size.decrementAndGet();
+		if (!failed && connection.isOpen()) {
+			try {
+				message.run();
+			} catch (RuntimeException e) {
+				LOGGER.error(SIMPLENET, "Error handling queued message from {}, disconnecting", connection.getAddress(), e);
+				failed = true;
+				connection.channel().pipeline().fireExceptionCaught(e);
+			}
+		}
+		return true;
+	}
+
+	private void afterDrain() {
+		if (failed || !connection.isOpen()) {
+			messages.clear();
+			QUEUES.remove(this);
+		} else if (paused && size.get() <= CAPACITY / 2) {
+			paused = false;
+			final Channel channel = connection.channel();
+			channel.eventLoop().execute(() -> channel.config().setAutoRead(true));
+		}
+	}
+}
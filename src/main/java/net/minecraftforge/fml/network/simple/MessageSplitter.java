@@ -0,0 +1,188 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network.simple;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.Identifier;
+import net.minecraftforge.fml.network.NetworkDirection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
+
+/**
+ * Splits encoded messages larger than a single custom payload into fragments, and reassembles them on the other side.
+ *
+ * <p>A fragment is the {@link IndexedMessageCodec#SPLIT_INDEX} discriminator, a VarInt message id, a VarInt fragment
+ * index counting from 0, the VarInt total message length on the first fragment only, then a run of message bytes.
+ * Fragments must arrive in index order; a missing, repeated or reordered fragment fails the connection rather than
+ * corrupting the message. Each connection reassembles into pooled composite buffers, and the bytes of incomplete
+ * messages it may hold at once are capped; a peer exceeding the cap is disconnected.</p>
+ */
+class MessageSplitter {
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Marker SIMPLENET = MarkerManager.getMarker("SIMPLENET");
+	// Discriminator, then up to three VarInts
+	private static final int HEADER_SIZE = 16;
+
+	private final Identifier channelName;
+	private final int maxPendingBytes;
+	private final AttributeKey<Reassembly> reassemblyKey;
+	private final AtomicInteger nextMessage = new AtomicInteger();
+
+	MessageSplitter(Identifier channelName, int maxPendingBytes) {
+		this.channelName = channelName;
+		this.maxPendingBytes = maxPendingBytes;
+		this.reassemblyKey = AttributeKey.valueOf("fml:split:" + channelName);
+	}
+
+	/**
+	 * @param message an encoded message, discriminator included
+	 * @param direction the direction the message travels in
+	 * @return the message itself if it fits a single payload, otherwise its fragments in sending order
+	 */
+	List<PacketByteBuf> split(PacketByteBuf message, NetworkDirection direction) {
+		return split(message, MessageBatcher.payloadLimit(direction));
+	}
+
+	List<PacketByteBuf> split(PacketByteBuf message, int limit) {
+		final int length = message.readableBytes();
+		if (length <= limit) {
+			return Collections.singletonList(message);
+		}
+		if (length > maxPendingBytes) {
+			throw new IllegalArgumentException("Message of " + length + " bytes exceeds the " + maxPendingBytes + " byte limit of channel " + channelName);
+		}
+		final int id = nextMessage.getAndIncrement() & Integer.MAX_VALUE;
+		final int fragmentSize = limit - HEADER_SIZE;
+		final List<PacketByteBuf> fragments = new ArrayList<>(length / fragmentSize + 1);
+		for (int offset = 0, index = 0; offset < length; offset += fragmentSize, index++) {
+			final int size = Math.min(fragmentSize, length - offset);
+			final PacketByteBuf fragment = new PacketByteBuf(Unpooled.buffer(HEADER_SIZE + size));
+			fragment.writeByte(IndexedMessageCodec.SPLIT_INDEX);
+			fragment.writeVarInt(id);
+			fragment.writeVarInt(index);
+			if (index == 0) {
+				fragment.writeVarInt(length);
+			}
+			fragment.writeBytes(message, message.readerIndex() + offset, size);
+			fragments.add(fragment);
+		}
+		return fragments;
+	}
+
+	/**
+	 * Add a fragment, the discriminator already read, to the connection's reassembly state.
+	 *
+	 * @return the complete message once its last fragment arrives, which the caller must release, otherwise null
+	 */
+	PacketByteBuf receive(PacketByteBuf fragment, ClientConnection connection) {
+		return receive(fragment, connection.channel(), () -> connection.disconnect(new LiteralText("Illegal packet received, terminating connection")));
+	}
+
+	PacketByteBuf receive(PacketByteBuf fragment, Channel channel, Runnable disconnect) {
+		final Attribute<Reassembly> attribute = channel.attr(reassemblyKey);
+		Reassembly reassembly = attribute.get();
+		if (reassembly == null) {
+			final Reassembly created = new Reassembly();
+			reassembly = attribute.setIfAbsent(created);
+			if (reassembly == null) {
+				reassembly = created;
+				channel.closeFuture().addListener(f -> created.release());
+			}
+		}
+		final int id = fragment.readVarInt();
+		final int index = fragment.readVarInt();
+		final CompositeByteBuf message;
+		synchronized (reassembly) {
+			PendingMessage pending = reassembly.messages.get(id);
+			if (index == 0) {
+				final int length = fragment.readVarInt();
+				if (pending != null || length <= 0 || reassembly.pendingBytes + length > maxPendingBytes) {
+					fail(attribute, reassembly, disconnect, "Message of " + length + " bytes on channel " + channelName + " exceeds the reassembly limit");
+					return null;
+				}
+				pending = new PendingMessage(length, PooledByteBufAllocator.DEFAULT.compositeBuffer(length / Math.max(1, fragment.readableBytes()) + 2));
+				reassembly.messages.put(id, pending);
+				reassembly.pendingBytes += length;
+			} else if (pending == null || index != pending.nextIndex) {
+				fail(attribute, reassembly, disconnect, "Fragment " + index + " of message " + id + " on channel " + channelName + " arrived out of order");
+				return null;
+			}
+			if (pending.buffer.readableBytes() + fragment.readableBytes() > pending.length) {
+				fail(attribute, reassembly, disconnect, "Message " + id + " on channel " + channelName + " is longer than announced");
+				return null;
+			}
+			pending.buffer.addComponent(true, fragment.readRetainedSlice(fragment.readableBytes()));
+			pending.nextIndex++;
+			if (pending.buffer.readableBytes() < pending.length) {
+				return null;
+			}
+			reassembly.messages.remove(id);
+			reassembly.pendingBytes -= pending.length;
+			message = pending.buffer;
+		}
+		return new PacketByteBuf(message);
+	}
+
+	private void fail(Attribute<Reassembly> attribute, Reassembly reassembly, Runnable disconnect, String reason) {
+		LOGGER.error(SIMPLENET, "{}, terminating connection", reason);
+		attribute.compareAndSet(reassembly, null);
+		reassembly.release();
+		disconnect.run();
+	}
+
+	private static class PendingMessage {
+		private final int length;
+		private final CompositeByteBuf buffer;
+		private int nextIndex;
+
+		PendingMessage(int length, CompositeByteBuf buffer) {
+			this.length = length;
+			this.buffer = buffer;
+		}
+	}
+
+	private static class Reassembly {
+		private final Int2ObjectMap<PendingMessage> messages = new Int2ObjectOpenHashMap<>();
+		private int pendingBytes;
+
+		synchronized void release() {
+			messages.values().forEach(pending -> pending.buffer.release());
+			messages.clear();
+			pendingBytes = 0;
+		}
+	}
+}
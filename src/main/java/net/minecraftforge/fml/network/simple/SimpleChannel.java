@@ -46,6 +46,8 @@ public class SimpleChannel {
 	private final IndexedMessageCodec indexedCodec;
 	private final Optional<Consumer<NetworkEvent.ChannelRegistrationChangeEvent>> registryChangeConsumer;
 	private final List<Function<Boolean, ? extends List<? extends Pair<String, ?>>>> loginPackets;
+	private MessageBatcher batcher;
+	private MessageSplitter splitter;
 
 	public SimpleChannel(NetworkInstance instance) {
 		this(instance, Optional.empty());
@@ -82,6 +84,68 @@ public class SimpleChannel {
 		}
 	}
 
+	/**
+	 * Coalesce the play messages sent to each connection during a tick into a single packet, sent at the end of the
+	 * tick. Both sides of the channel must enable batching, and message index 255 becomes reserved for batches.
+	 * Replies and login messages are never batched, and flush the pending batch ahead of them to keep messages in
+	 * order.
+	 *
+	 * @return this channel
+	 */
+	public SimpleChannel enableMessageBatching() {
+		if (this.batcher == null) {
+			this.indexedCodec.enableBatching();
+			this.batcher = new MessageBatcher(instance.getChannelName());
+		}
+		return this;
+	}
+
+	/**
+	 * Split play messages too large for one custom payload into fragments, reassembled before decoding on the other
+	 * side. Both sides of the channel must enable splitting, and message index 254 becomes reserved for fragments.
+	 * A connection may hold up to 16 MiB of partially received messages.
+	 *
+	 * @return this channel
+	 */
+	public SimpleChannel enableMessageSplitting() {
+		return enableMessageSplitting(16 * 1024 * 1024);
+	}
+
+	/**
+	 * @param maxPendingBytes the most bytes of partially received messages a connection may hold; larger messages
+	 *                        cannot be sent, and peers exceeding it are disconnected
+	 * @return this channel
+	 * @see #enableMessageSplitting()
+	 */
+	public SimpleChannel enableMessageSplitting(int maxPendingBytes) {
+		if (this.splitter == null) {
+			this.splitter = new MessageSplitter(instance.getChannelName(), maxPendingBytes);
+			this.indexedCodec.enableSplitting(this.splitter);
+		}
+		return this;
+	}
+
+	private static boolean isPlay(NetworkDirection direction) {
+		return direction == NetworkDirection.PLAY_TO_CLIENT || direction == NetworkDirection.PLAY_TO_SERVER;
+	}
+
+	private boolean isBatched(NetworkDirection direction) {
+		return batcher != null && isPlay(direction);
+	}
+
+	private boolean isSplit(NetworkDirection direction) {
+		return splitter != null && isPlay(direction);
+	}
+
+	private <MSG> List<PacketByteBuf> toPayloads(MSG message, NetworkDirection direction) {
+		final PacketByteBuf encoded = toBuffer(message).getLeft();
+		return isSplit(direction) ? splitter.split(encoded, direction) : Collections.singletonList(encoded);
+	}
+
+	private Packet<?> toPlayPacket(PacketByteBuf payload, NetworkDirection direction) {
+		return direction.buildPacket(Pair.of(payload, Integer.MIN_VALUE), instance.getChannelName()).getThis();
+	}
+
 	public <MSG> int encodeMessage(MSG message, final PacketByteBuf target) {
 		return this.indexedCodec.build(message, target);
 	}
@@ -105,7 +169,13 @@ public class SimpleChannel {
 	}
 
 	public <MSG> void sendTo(MSG message, ClientConnection manager, NetworkDirection direction) {
-		manager.send(toVanillaPacket(message, direction));
+		if (isBatched(direction)) {
+			toPayloads(message, direction).forEach(payload -> batcher.queue(manager, direction, payload));
+		} else if (isSplit(direction)) {
+			toPayloads(message, direction).forEach(payload -> manager.send(toPlayPacket(payload, direction)));
+		} else {
+			manager.send(toVanillaPacket(message, direction));
+		}
 	}
 
 	/**
@@ -120,7 +190,22 @@ public class SimpleChannel {
 	 * @param <MSG> The type of the message
 	 */
 	public <MSG> void send(PacketDistributor.PacketTarget target, MSG message) {
-		target.send(toVanillaPacket(message, target.getDirection()));
+		final NetworkDirection direction = target.getDirection();
+		if (isBatched(direction) && target.hasConnections()) {
+			for (PacketByteBuf payload : toPayloads(message, direction)) {
+				target.forEachConnection(connection -> batcher.queue(connection, direction, payload));
+			}
+		} else {
+			if (isBatched(direction)) {
+				// The target can't list its connections, so flush every batch it could be overtaking
+				batcher.flush(direction);
+			}
+			if (isSplit(direction)) {
+				toPayloads(message, direction).forEach(payload -> target.send(toPlayPacket(payload, direction)));
+			} else {
+				target.send(toVanillaPacket(message, direction));
+			}
+		}
 	}
 
 	public <MSG> Packet<?> toVanillaPacket(MSG message, NetworkDirection direction) {
@@ -128,7 +213,14 @@ public class SimpleChannel {
 	}
 
 	public <MSG> void reply(MSG msgToReply, NetworkEvent.Context context) {
-		context.getPacketDispatcher().sendPacket(instance.getChannelName(), toBuffer(msgToReply).getLeft());
+		if (isBatched(context.getDirection().reply())) {
+			batcher.flush(context.getNetworkManager());
+		}
+		if (isSplit(context.getDirection().reply())) {
+			toPayloads(msgToReply, context.getDirection().reply()).forEach(payload -> context.getPacketDispatcher().sendPacket(instance.getChannelName(), payload));
+		} else {
+			context.getPacketDispatcher().sendPacket(instance.getChannelName(), toBuffer(msgToReply).getLeft());
+		}
 	}
 
 	/**
@@ -168,6 +260,7 @@ public class SimpleChannel {
 		private BiConsumer<MSG, Integer> loginIndexSetter;
 		private Function<Boolean, List<Pair<String, MSG>>> loginPacketGenerators;
 		private Optional<NetworkDirection> networkDirection;
+		private boolean networkThreadDecode;
 
 		private static <MSG> MessageBuilder<MSG> forType(final SimpleChannel channel, final Class<MSG> type, int id, NetworkDirection networkDirection) {
 			MessageBuilder<MSG> builder = new MessageBuilder<>();
@@ -210,6 +303,18 @@ public class SimpleChannel {
 			return this;
 		}
 
+		/**
+		 * Decode this message on the network thread as soon as it arrives, and queue the decoded message for the main
+		 * thread, which hands it to the consumer during its next tick. Use for messages that are expensive to decode.
+		 * Every play message on the channel is then handled from the same queue, in the order they arrived.
+		 *
+		 * @return this
+		 */
+		public MessageBuilder<MSG> decodeOnNetworkThread() {
+			this.networkThreadDecode = true;
+			return this;
+		}
+
 		public MessageBuilder<MSG> consumer(BiConsumer<MSG, Supplier<NetworkEvent.Context>> consumer) {
 			this.consumer = consumer;
 			return this;
@@ -246,6 +351,11 @@ public class SimpleChannel {
 			if (this.loginPacketGenerators != null) {
 				this.channel.loginPackets.add(this.loginPacketGenerators);
 			}
+			if (this.networkThreadDecode) {
+				message.setNetworkThreadDecode();
+				this.channel.indexedCodec.enableQueueing();
+				this.channel.instance.enableNetworkThreadDispatch();
+			}
 		}
 	}
 }
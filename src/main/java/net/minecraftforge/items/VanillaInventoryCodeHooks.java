@@ -31,6 +31,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import net.minecraftforge.common.capabilities.BlockCapabilityCache;
 import net.minecraftforge.common.util.LazyOptional;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -213,6 +214,15 @@ public class VanillaInventoryCodeHooks
 
     private static Optional<Pair<IItemHandler, Object>> getItemHandler(Hopper hopper, Direction hopperFacing)
     {
+        if (hopper instanceof HopperBlockEntity && hopper.getWorld() != null)
+        {
+            // Hopper block entities never move, so they keep a cached lookup per neighbour.
+            final BlockCapabilityCache<IItemHandler> cache = ((HopperBlockEntity)hopper).getItemHandlerCache(hopperFacing);
+            final LazyOptional<IItemHandler> handler = cache.get();
+            final BlockEntity tileentity = cache.getBlockEntity();
+            return tileentity == null ? Optional.empty() : handler.map(capability -> ImmutablePair.<IItemHandler, Object>of(capability, tileentity));
+        }
+
         double x = hopper.getHopperX() + (double) hopperFacing.getOffsetX();
         double y = hopper.getHopperY() + (double) hopperFacing.getOffsetY();
         double z = hopper.getHopperZ() + (double) hopperFacing.getOffsetZ();
@@ -0,0 +1,244 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+
+/**
+ * Versioned compact binary form of a {@link ForgeRegistry.Snapshot}.
+ *
+ * Namespaces are written once into a dictionary and referenced by index, ids are written as runs of contiguous values
+ * so most entries carry no id at all, and blocked ids are delta coded.
+ */
+final class CompactSnapshotCodec
+{
+    static final int VERSION = 1;
+    // Registry packets are sent during login, before the connection enables compression, and must fit in one payload
+    private static final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+    private CompactSnapshotCodec() {}
+
+    static void write(ForgeRegistry.Snapshot snapshot, PacketByteBuf buf)
+    {
+        buf.writeVarInt(VERSION);
+
+        List<String> namespaces = new ArrayList<>();
+        Object2IntMap<String> namespaceIds = new Object2IntOpenHashMap<>();
+        namespaceIds.defaultReturnValue(-1);
+        collectNamespaces(snapshot, namespaces, namespaceIds);
+        buf.writeVarInt(namespaces.size());
+        namespaces.forEach(buf::writeString);
+
+        // Ids are written in id order, as runs of consecutive values
+        List<Map.Entry<Identifier, Integer>> byId = new ArrayList<>(snapshot.ids.entrySet());
+        byId.sort(Map.Entry.comparingByValue());
+        buf.writeVarInt(byId.size());
+        int expected = 0;
+        for (int start = 0; start < byId.size(); )
+        {
+            int end = start + 1;
+            while (end < byId.size() && byId.get(end).getValue() == byId.get(end - 1).getValue() + 1)
+                end++;
+            int first = byId.get(start).getValue();
+            buf.writeVarInt(first - expected);
+            buf.writeVarInt(end - start);
+            for (int i = start; i < end; i++)
+                writeName(buf, namespaceIds, byId.get(i).getKey());
+            expected = first + (end - start);
+            start = end;
+        }
+
+        buf.writeVarInt(snapshot.aliases.size());
+        snapshot.aliases.forEach((k, v) ->
+        {
+            writeName(buf, namespaceIds, k);
+            writeName(buf, namespaceIds, v);
+        });
+
+        buf.writeVarInt(snapshot.overrides.size());
+        snapshot.overrides.forEach((k, v) ->
+        {
+            writeName(buf, namespaceIds, k);
+            buf.writeString(v, 0x100);
+        });
+
+        // blocked is a TreeSet, so deltas are never negative
+        buf.writeVarInt(snapshot.blocked.size());
+        int previous = 0;
+        for (int id : snapshot.blocked)
+        {
+            buf.writeVarInt(id - previous);
+            previous = id;
+        }
+
+        buf.writeVarInt(snapshot.dummied.size());
+        snapshot.dummied.forEach(name -> writeName(buf, namespaceIds, name));
+    }
+
+    static ForgeRegistry.Snapshot read(PacketByteBuf buf)
+    {
+        int version = buf.readVarInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported compact registry snapshot version " + version);
+
+        ForgeRegistry.Snapshot ret = new ForgeRegistry.Snapshot();
+        String[] namespaces = new String[buf.readVarInt()];
+        for (int x = 0; x < namespaces.length; x++)
+            namespaces[x] = buf.readString(Short.MAX_VALUE);
+
+        int remaining = buf.readVarInt();
+        int expected = 0;
+        while (remaining > 0)
+        {
+            int id = expected + buf.readVarInt();
+            int length = buf.readVarInt();
+            if (length <= 0 || length > remaining)
+                throw new IllegalArgumentException("Invalid id run of length " + length + " in compact registry snapshot");
+            for (int i = 0; i < length; i++)
+                ret.ids.put(readName(buf, namespaces), id++);
+            expected = id;
+            remaining -= length;
+        }
+
+        int len = buf.readVarInt();
+        for (int x = 0; x < len; x++)
+            ret.aliases.put(readName(buf, namespaces), readName(buf, namespaces));
+
+        len = buf.readVarInt();
+        for (int x = 0; x < len; x++)
+            ret.overrides.put(readName(buf, namespaces), buf.readString(0x100));
+
+        len = buf.readVarInt();
+        int previous = 0;
+        for (int x = 0; x < len; x++)
+        {
+            previous += buf.readVarInt();
+            ret.blocked.add(previous);
+        }
+
+        len = buf.readVarInt();
+        for (int x = 0; x < len; x++)
+            ret.dummied.add(readName(buf, namespaces));
+
+        return ret;
+    }
+
+    /**
+     * Deflates the data into {@code out} as a length prefixed block.
+     */
+    static void writeDeflated(PacketByteBuf data, PacketByteBuf out)
+    {
+        byte[] raw = new byte[data.readableBytes()];
+        data.readBytes(raw);
+        Deflater deflater = new Deflater();
+        try
+        {
+            deflater.setInput(raw);
+            deflater.finish();
+            PacketByteBuf compressed = new PacketByteBuf(Unpooled.buffer(raw.length / 4 + 64));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished())
+                compressed.writeBytes(chunk, 0, deflater.deflate(chunk));
+            out.writeVarInt(raw.length);
+            out.writeVarInt(compressed.readableBytes());
+            out.writeBytes(compressed);
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    static PacketByteBuf readDeflated(PacketByteBuf in)
+    {
+        int rawLength = in.readVarInt();
+        if (rawLength < 0 || rawLength > MAX_INFLATED_SIZE)
+            throw new IllegalArgumentException("Compressed registry snapshot claims an invalid size of " + rawLength);
+        byte[] compressed = new byte[in.readVarInt()];
+        in.readBytes(compressed);
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished())
+            {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += n;
+            }
+            if (read != rawLength)
+                throw new IllegalArgumentException("Compressed registry snapshot was truncated");
+            return new PacketByteBuf(Unpooled.wrappedBuffer(raw));
+        }
+        catch (DataFormatException e)
+        {
+            throw new IllegalArgumentException("Compressed registry snapshot is corrupt", e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static void collectNamespaces(ForgeRegistry.Snapshot snapshot, List<String> namespaces, Object2IntMap<String> namespaceIds)
+    {
+        List<Identifier> names = new ArrayList<>(snapshot.ids.keySet());
+        names.addAll(snapshot.aliases.keySet());
+        names.addAll(snapshot.aliases.values());
+        names.addAll(snapshot.overrides.keySet());
+        names.addAll(snapshot.dummied);
+        for (Identifier name : names)
+        {
+            if (namespaceIds.getInt(name.getNamespace()) == -1)
+            {
+                namespaceIds.put(name.getNamespace(), namespaces.size());
+                namespaces.add(name.getNamespace());
+            }
+        }
+    }
+
+    private static void writeName(PacketByteBuf buf, Object2IntMap<String> namespaceIds, Identifier name)
+    {
+        buf.writeVarInt(namespaceIds.getInt(name.getNamespace()));
+        buf.writeString(name.getPath());
+    }
+
+    private static Identifier readName(PacketByteBuf buf, String[] namespaces)
+    {
+        int namespace = buf.readVarInt();
+        if (namespace < 0 || namespace >= namespaces.length)
+            throw new IllegalArgumentException("Invalid namespace index " + namespace + " in compact registry snapshot");
+        return new Identifier(namespaces[namespace], buf.readString(Short.MAX_VALUE));
+    }
+}
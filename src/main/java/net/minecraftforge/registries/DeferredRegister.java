@@ -26,9 +26,11 @@ import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.RegistryObject;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -195,11 +197,18 @@ public class DeferredRegister<T extends IForgeRegistryEntry<T>>
             this.seenRegisterEvent = true;
             @SuppressWarnings("unchecked")
             IForgeRegistry<T> reg = (IForgeRegistry<T>)event.getRegistry();
+            // Suppliers run in order, and may use the RegistryObjects of earlier entries, so each one is bound to its
+            // value before the next supplier runs. The whole set is then registered as one batch.
+            List<T> values = new ArrayList<>(entries.size());
             for (Entry<RegistryObject<T>, Supplier<? extends T>> e : entries.entrySet())
             {
-                reg.register(e.getValue().get());
-                e.getKey().updateReference(reg);
+                T value = e.getValue().get();
+                e.getKey().updatePendingReference(value);
+                values.add(value);
             }
+            reg.registerAll(values);
+            for (RegistryObject<T> ro : entries.keySet())
+                ro.updateReference(reg);
         }
     }
 
@@ -19,14 +19,17 @@
 
 package net.minecraftforge.registries;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -42,10 +45,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 
 import io.netty.buffer.Unpooled;
 import net.minecraft.nbt.CompoundTag;
@@ -68,9 +73,10 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     private static Marker REGISTRYDUMP = MarkerManager.getMarker("REGISTRYDUMP");
     private static Logger LOGGER = LogManager.getLogger();
     private final RegistryManager stage;
-    private final BiMap<Integer, V> ids = HashBiMap.create();
-    private final BiMap<Identifier, V> names = HashBiMap.create();
-    private final BiMap<RegistryKey<V>, V> keys = HashBiMap.create();
+    // Not final so addAll can swap in presized copies, the key, value and entry views read them through LiveSet
+    private BiMap<Integer, V> ids = HashBiMap.create();
+    private BiMap<Identifier, V> names = HashBiMap.create();
+    private BiMap<RegistryKey<V>, V> keys = HashBiMap.create();
     private final Class<V> superType;
     private final Map<Identifier, Identifier> aliases = Maps.newHashMap();
     final Map<Identifier, ?> slaves = Maps.newHashMap();
@@ -85,7 +91,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     private final Set<Identifier> dummies = Sets.newHashSet();
     private final Set<Integer> blocked = Sets.newHashSet();
     private final Multimap<Identifier, V> overrides = ArrayListMultimap.create();
-    private final BiMap<OverrideOwner, V> owners = HashBiMap.create();
+    private BiMap<OverrideOwner, V> owners = HashBiMap.create();
     private final DummyFactory<V> dummyFactory;
     private final boolean isDelegated;
     private final int min;
@@ -98,6 +104,16 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     private V defaultValue = null;
     boolean isFrozen = false;
 
+    // Lookup tables built by bake() and dropped by any change to ids, names or aliases, so lookups fall back to the maps.
+    @Nullable
+    private IdLookupTable<V> bakedIds = null;
+    @Nullable
+    private NameLookupTable<V> bakedNames = null;
+
+    private final Set<Identifier> keyView = new LiveSet<>(() -> this.names.keySet());
+    private final Set<V> valueView = new LiveSet<>(() -> this.names.values());
+    private final Set<Entry<RegistryKey<V>, V>> entryView = new LiveSet<>(() -> this.keys.entrySet());
+
     private final Identifier name;
     private final RegistryKey<Registry<V>> key;
     private final RegistryBuilder<V> builder;
@@ -188,8 +204,13 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     @Override
     public void registerAll(@SuppressWarnings("unchecked") V... values)
     {
-        for (V value : values)
-            register(value);
+        registerAll(Arrays.asList(values));
+    }
+
+    @Override
+    public void registerAll(Collection<? extends V> values)
+    {
+        addAll(values, ModLoadingContext.get().getActiveNamespace());
     }
 
     @Override
@@ -219,6 +240,13 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     @Override
     public V getValue(Identifier key)
     {
+        NameLookupTable<V> baked = this.bakedNames;
+        if (baked != null)
+        {
+            V ret = baked.get(key);
+            return ret == null ? this.defaultValue : ret;
+        }
+
         V ret = this.names.get(key);
         key = this.aliases.get(key);
         while (ret == null && key != null)
@@ -239,20 +267,20 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     @Override
     public Set<Identifier> getKeys()
     {
-        return Collections.unmodifiableSet(this.names.keySet());
+        return this.keyView;
     }
 
     @Nonnull
     @Override
     public Collection<V> getValues()
     {
-        return Collections.unmodifiableSet(this.names.values());
+        return this.valueView;
     }
 
     @Override
     public Set<Entry<RegistryKey<V>, V>> getEntries()
     {
-        return Collections.unmodifiableSet(this.keys.entrySet());
+        return this.entryView;
     }
 
     @SuppressWarnings("unchecked")
@@ -271,6 +299,15 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
 
     public int getID(V value)
     {
+        final IdLookupTable<V> baked = this.bakedIds;
+        if (baked != null)
+        {
+            int ret = baked.getId(value);
+            if (ret == -1 && this.defaultValue != null)
+                ret = baked.getId(this.defaultValue);
+            return ret;
+        }
+
         Integer ret = this.ids.inverse().get(value);
         if (ret == null && this.defaultValue != null)
             ret = this.ids.inverse().get(this.defaultValue);
@@ -283,6 +320,9 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
     }
     private int getIDRaw(V value)
     {
+        final IdLookupTable<V> baked = this.bakedIds;
+        if (baked != null)
+            return baked.getId(value);
         Integer ret = this.ids.inverse().get(value);
         return ret == null ? -1 : ret.intValue();
     }
@@ -293,6 +333,13 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
 
     public V getValue(int id)
     {
+        final IdLookupTable<V> baked = this.bakedIds;
+        if (baked != null)
+        {
+            V ret = baked.getValue(id);
+            return ret == null ? this.defaultValue : ret;
+        }
+
         V ret = this.ids.get(id);
         return ret == null ? this.defaultValue : ret;
     }
@@ -366,12 +413,25 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         if (isLocked())
             throw new IllegalStateException(String.format("The object %s (name %s) is being added too late.", value, key));
 
+        if (defaultKey != null && defaultKey.equals(key) && this.defaultValue != null)
+            throw new IllegalStateException(String.format("Attemped to override already set default value. This is not allowed: The object %s (name %s)", value, key));
+
+        putEntry(idToUse, key, value, oldEntry, owner);
+        invalidateBakedLookups();
+
+        if (this.add != null)
+            this.add.onAdd(this, this.stage, idToUse, value, oldEntry);
+
+        LOGGER.trace(REGISTRIES,"Registry {} add: {} {} {} (req. id {})", this.superType.getSimpleName(), key, idToUse, value, id);
+
+        return idToUse;
+    }
+
+    // The map work of add, for an entry that has passed every check
+    private void putEntry(int idToUse, Identifier key, V value, @Nullable V oldEntry, @Nullable String owner)
+    {
         if (defaultKey != null && defaultKey.equals(key))
-        {
-            if (this.defaultValue != null)
-                throw new IllegalStateException(String.format("Attemped to override already set default value. This is not allowed: The object %s (name %s)", value, key));
             this.defaultValue = value;
-        }
 
         this.names.put(key, value);
         this.keys.put(RegistryKey.of(this.key, key), value);
@@ -392,15 +452,133 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
             }
         }
 
-        if (this.add != null)
-            this.add.onAdd(this, this.stage, idToUse, value, oldEntry);
-
         if (this.dummies.remove(key))
             LOGGER.debug(REGISTRIES,"Registry {} Dummy Remove: {}", this.superType.getSimpleName(), key);
+    }
 
-        LOGGER.trace(REGISTRIES,"Registry {} add: {} {} {} (req. id {})", this.superType.getSimpleName(), key, idToUse, value, id);
+    /**
+     * Adds a batch of entries. The whole batch is validated once, before anything is added, and every problem found
+     * is reported together, so a rejected batch leaves the registry untouched. The maps are then presized and the
+     * entries added in order without repeating the checks, taking ids from a cursor instead of searching from the
+     * start of the id range for each one. The add callbacks run afterwards, in the same order.
+     */
+    void addAll(Collection<? extends V> values, String owner)
+    {
+        validateBatch(values, owner);
+        reserve(values.size());
 
-        return idToUse;
+        List<V> added = new ArrayList<>(values.size());
+        List<V> replaced = new ArrayList<>(values.size());
+        int[] addedIds = new int[values.size()];
+        int nextId = this.min;
+        for (V value : values)
+        {
+            Identifier key = value.getRegistryName();
+            V oldEntry = getRaw(key);
+            if (oldEntry == value)
+            {
+                LOGGER.warn(REGISTRIES,"Registry {}: The object {} has been registered twice for the same name {}.", this.superType.getSimpleName(), value, key);
+                continue;
+            }
+            int idToUse;
+            if (oldEntry != null)
+            {
+                LOGGER.debug(REGISTRIES,"Registry {} Override: {} {} -> {}", this.superType.getSimpleName(), key, oldEntry, value);
+                idToUse = this.getID(oldEntry);
+            }
+            else
+            {
+                idToUse = this.availabilityMap.nextClearBit(nextId);
+                nextId = idToUse + 1;
+            }
+            putEntry(idToUse, key, value, oldEntry, owner);
+            addedIds[added.size()] = idToUse;
+            added.add(value);
+            replaced.add(oldEntry);
+        }
+        invalidateBakedLookups();
+
+        if (this.add != null)
+        {
+            for (int x = 0; x < added.size(); x++)
+                this.add.onAdd(this, this.stage, addedIds[x], added.get(x), replaced.get(x));
+        }
+        LOGGER.trace(REGISTRIES,"Registry {} added {} entries in a batch", this.superType.getSimpleName(), added.size());
+    }
+
+    /**
+     * Makes room for {@code additional} more entries. HashBiMap can't grow in place, so when the batch at least
+     * doubles the registry the maps are copied once into presized ones, instead of rehashing as they fill up.
+     */
+    private void reserve(int additional)
+    {
+        int size = this.ids.size();
+        if (additional >= size && additional > 16)
+        {
+            this.ids = presized(this.ids, size + additional);
+            this.names = presized(this.names, size + additional);
+            this.keys = presized(this.keys, size + additional);
+            this.owners = presized(this.owners, this.owners.size() + additional);
+        }
+        // Setting the highest bit the batch could need grows the words array once, clearing it keeps the array
+        int top = (int)Math.min(this.max, (long)this.availabilityMap.nextClearBit(this.min) + additional);
+        if (!this.availabilityMap.get(top))
+        {
+            this.availabilityMap.set(top);
+            this.availabilityMap.clear(top);
+        }
+    }
+
+    private static <K, T> BiMap<K, T> presized(BiMap<K, T> map, int expectedSize)
+    {
+        BiMap<K, T> ret = HashBiMap.create(expectedSize);
+        ret.putAll(map);
+        return ret;
+    }
+
+    private void validateBatch(Collection<? extends V> values, @Nullable String owner)
+    {
+        if (isLocked())
+            throw new IllegalStateException(String.format("%d objects are being added to %s too late.", values.size(), this.name));
+
+        List<String> problems = Lists.newArrayList();
+        Map<Identifier, V> batchNames = Maps.newHashMapWithExpectedSize(values.size());
+        Map<V, Identifier> batchValues = Maps.newIdentityHashMap();
+        int newIds = 0;
+        for (V value : values)
+        {
+            Identifier key = value == null ? null : value.getRegistryName();
+            if (key == null)
+            {
+                problems.add(String.format("Can't add %s without a registry name", value));
+                continue;
+            }
+
+            Identifier registeredAs = this.ids.containsValue(value) ? getKey(value) : batchValues.get(value);
+            if (registeredAs != null && !registeredAs.equals(key))
+                problems.add(String.format("The object %s{%x} has been registered twice, using the names %s and %s.", value, System.identityHashCode(value), registeredAs, key));
+            batchValues.put(value, key);
+
+            V other = batchNames.put(key, value);
+            if (other == null)
+                other = getRaw(key);
+            if (other != null && other != value && !this.allowOverrides)
+                problems.add(String.format("The name %s has been registered twice, for %s and %s.", key, other, value));
+            if (other != null && other != value && this.allowOverrides && owner == null)
+                problems.add(String.format("Could not determine owner for the override on %s. Value: %s", key, value));
+            if (other == null)
+                newIds++; // Overrides reuse the id of the entry they replace
+
+            if (key.equals(this.defaultKey) && this.defaultValue != null && this.defaultValue != value)
+                problems.add(String.format("Attemped to override already set default value. This is not allowed: The object %s (name %s)", value, key));
+        }
+
+        int freeIds = (this.max - this.min + 1) - this.availabilityMap.get(this.min, this.max + 1).cardinality();
+        if (newIds > freeIds)
+            problems.add(String.format("%d new entries do not fit the %d ids left in the range %d to %d.", newIds, freeIds, this.min, this.max));
+
+        if (!problems.isEmpty())
+            throw new IllegalArgumentException(String.format("Registry %s: %d invalid entries in batch:%n\t%s", this.name, problems.size(), String.join(String.format("%n\t"), problems)));
     }
 
     public V getRaw(Identifier key)
@@ -427,6 +605,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         }
 
         this.aliases.put(from, to);
+        invalidateBakedLookups();
         LOGGER.trace(REGISTRIES,"Registry {} alias: {} -> {}", this.superType.getSimpleName(), from, to);
     }
 
@@ -520,10 +699,40 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
 
     public void bake()
     {
+        this.bakedIds = new IdLookupTable<>(this.ids);
+        bakeNames();
         if (this.bake != null)
             this.bake.onBake(this, this.stage);
     }
 
+    private void bakeNames()
+    {
+        // Aliases are resolved up front, so a baked lookup is a single probe whether or not the name was renamed.
+        Map<Identifier, V> entries = Maps.newHashMapWithExpectedSize(this.names.size() + this.aliases.size());
+        entries.putAll(this.names);
+        for (Identifier alias : this.aliases.keySet())
+        {
+            if (entries.containsKey(alias))
+                continue;
+            Identifier key = this.aliases.get(alias);
+            V value = null;
+            for (int depth = 0; value == null && key != null && depth <= this.aliases.size(); depth++)
+            {
+                value = this.names.get(key);
+                key = this.aliases.get(key);
+            }
+            if (value != null)
+                entries.put(alias, value);
+        }
+        this.bakedNames = new NameLookupTable<>(entries);
+    }
+
+    private void invalidateBakedLookups()
+    {
+        this.bakedIds = null;
+        this.bakedNames = null;
+    }
+
     void sync(Identifier name, ForgeRegistry<V> from)
     {
         LOGGER.debug(REGISTRIES,"Registry {} Sync: {} -> {}", this.superType.getSimpleName(), this.stage.getName(), from.stage.getName());
@@ -546,6 +755,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         from.aliases.forEach(this::addAlias);
 
         this.ids.clear();
+        invalidateBakedLookups();
         this.names.clear();
         this.keys.clear();
         this.availabilityMap.clear(0, this.availabilityMap.length());
@@ -617,6 +827,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         this.dummies.clear();
 
         this.ids.clear();
+        invalidateBakedLookups();
         this.names.clear();
         this.keys.clear();
         this.availabilityMap.clear(0, this.availabilityMap.length());
@@ -639,6 +850,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
                 throw new IllegalStateException("Removed a entry that did not have an associated RegistryKey: " + key + " " + value.toString() + " This should never happen unless hackery!");
 
             Integer id = this.ids.inverse().remove(value);
+            invalidateBakedLookups();
             if (id == null)
                 throw new IllegalStateException("Removed a entry that did not have an associated id: " + key + " " + value.toString() + " This should never happen unless hackery!");
 
@@ -796,6 +1008,7 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
                 throw new IllegalStateException("Removed a entry that did not have an associated RegistryKey: " + key + " " + value.toString() + " This should never happen unless hackery!");
 
             Integer oldid = this.ids.inverse().remove(value);
+            invalidateBakedLookups();
             if (oldid == null)
                 throw new IllegalStateException("Removed a entry that did not have an associated id: " + key + " " + value.toString() + " This should never happen unless hackery!");
 
@@ -839,8 +1052,40 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         return ret;
     }
 
+    // Read-only view of whichever set the supplier currently returns, so views handed out survive reserve()
+    private static final class LiveSet<E> extends AbstractSet<E>
+    {
+        private final Supplier<Set<E>> source;
+
+        LiveSet(Supplier<Set<E>> source)
+        {
+            this.source = source;
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return Iterators.unmodifiableIterator(this.source.get().iterator());
+        }
+
+        @Override
+        public int size()
+        {
+            return this.source.get().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return this.source.get().contains(o);
+        }
+    }
+
     public static class Snapshot
     {
+        // Saves written with the compact format can't be read by older versions, so it is only written to disk on request.
+        // The login handshake negotiates the compact format separately, see writeCompact.
+        private static final boolean WRITE_COMPACT_NBT = Boolean.parseBoolean(System.getProperty("forge.registries.compactSnapshotFormat", "false"));
         private static final Comparator<Identifier> sorter = (a,b) -> a.compareNamespaced(b);
         public final Map<Identifier, Integer> ids = Maps.newTreeMap(sorter);
         public final Map<Identifier, Identifier> aliases = Maps.newTreeMap(sorter);
@@ -848,8 +1093,24 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
         public final Set<Identifier> dummied = Sets.newTreeSet(sorter);
         public final Map<Identifier, String> overrides = Maps.newTreeMap(sorter);
         private PacketByteBuf binary = null;
+        private PacketByteBuf compactBinary = null;
+        private String hash = null;
 
         public CompoundTag write()
+        {
+            if (WRITE_COMPACT_NBT)
+            {
+                PacketByteBuf compact = getCompactPacketData();
+                byte[] bytes = new byte[compact.readableBytes()];
+                compact.readBytes(bytes);
+                CompoundTag data = new CompoundTag();
+                data.putByteArray("compact", bytes);
+                return data;
+            }
+            return writeLegacy();
+        }
+
+        private CompoundTag writeLegacy()
         {
             CompoundTag data = new CompoundTag();
 
@@ -900,6 +1161,10 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
             {
                 return ret;
             }
+            if (nbt.contains("compact", 7))
+            {
+                return CompactSnapshotCodec.read(new PacketByteBuf(Unpooled.wrappedBuffer(nbt.getByteArray("compact"))));
+            }
 
             ListTag list = nbt.getList("ids", 10);
             list.forEach(e ->
@@ -969,6 +1234,61 @@ public class ForgeRegistry<V extends IForgeRegistryEntry<V>> implements IForgeRe
             return new PacketByteBuf(binary.slice());
         }
 
+        /**
+         * The snapshot in the compact format of {@link CompactSnapshotCodec}, cached like {@link #getPacketData()}.
+         */
+        public synchronized PacketByteBuf getCompactPacketData()
+        {
+            if (compactBinary == null)
+            {
+                PacketByteBuf pkt = new PacketByteBuf(Unpooled.buffer());
+                CompactSnapshotCodec.write(this, pkt);
+                this.compactBinary = pkt;
+            }
+            return new PacketByteBuf(compactBinary.slice());
+        }
+
+        /**
+         * Writes the compact form, deflated when it is at least {@code compressionThreshold} bytes long.
+         * A negative threshold disables compression.
+         */
+        public void writeCompact(PacketByteBuf buffer, int compressionThreshold)
+        {
+            PacketByteBuf data = getCompactPacketData();
+            boolean deflate = compressionThreshold >= 0 && data.readableBytes() >= compressionThreshold;
+            buffer.writeBoolean(deflate);
+            if (deflate)
+                CompactSnapshotCodec.writeDeflated(data, buffer);
+            else
+                buffer.writeBytes(data);
+        }
+
+        /**
+         * Reads a snapshot written by {@link #writeCompact(PacketByteBuf, int)}.
+         */
+        public static Snapshot readCompact(PacketByteBuf buffer)
+        {
+            if (buffer.readBoolean())
+                return CompactSnapshotCodec.read(CompactSnapshotCodec.readDeflated(buffer));
+            return CompactSnapshotCodec.read(buffer);
+        }
+
+        /**
+         * A stable digest of {@link #getPacketData()}, used by the login handshake to tell whether a client already
+         * holds an identical copy of this snapshot.
+         */
+        public synchronized String getPacketHash()
+        {
+            if (hash == null)
+            {
+                PacketByteBuf data = getPacketData();
+                byte[] bytes = new byte[data.readableBytes()];
+                data.readBytes(bytes);
+                this.hash = Hashing.sha256().hashBytes(bytes).toString();
+            }
+            return hash;
+        }
+
         public static Snapshot read(PacketByteBuf buff)
         {
             if (buff == null)
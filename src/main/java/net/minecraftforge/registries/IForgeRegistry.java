@@ -41,6 +41,15 @@ public interface IForgeRegistry<V extends IForgeRegistryEntry<V>> extends Iterab
 
     void registerAll(@SuppressWarnings("unchecked") V... values);
 
+    /**
+     * Registers a batch of entries. Implementations may validate the batch as a whole, and only run their add
+     * callbacks once every entry is in.
+     */
+    default void registerAll(Collection<? extends V> values)
+    {
+        values.forEach(this::register);
+    }
+
     boolean containsKey(Identifier key);
     boolean containsValue(V value);
     boolean isEmpty();
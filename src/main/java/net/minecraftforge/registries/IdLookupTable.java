@@ -0,0 +1,90 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+/**
+ * Read only id to value and value to id tables, built by {@link ForgeRegistry#bake()} once the ids stop changing.
+ *
+ * Values are matched by identity. Ids are handed out densely, so id to value lookups are served from a plain array,
+ * unless a snapshot left the id space so sparse that the array would mostly be empty.
+ */
+final class IdLookupTable<V>
+{
+    @Nullable
+    private final Object[] values;
+    @Nullable
+    private final Int2ObjectMap<V> sparseValues;
+    private final Reference2IntMap<V> ids;
+
+    IdLookupTable(Map<Integer, V> entries)
+    {
+        int maxId = -1;
+        boolean negative = false;
+        for (Integer id : entries.keySet())
+        {
+            maxId = Math.max(maxId, id);
+            negative |= id < 0;
+        }
+
+        this.ids = new Reference2IntOpenHashMap<>(entries.size());
+        this.ids.defaultReturnValue(-1);
+        boolean dense = !negative && maxId <= entries.size() * 2 + 1024;
+        this.values = dense ? new Object[maxId + 1] : null;
+        this.sparseValues = dense ? null : new Int2ObjectOpenHashMap<>(entries.size());
+        entries.forEach((id, value) ->
+        {
+            this.ids.put(value, id.intValue());
+            if (this.values != null)
+                this.values[id] = value;
+            else
+                this.sparseValues.put(id.intValue(), value);
+        });
+    }
+
+    /**
+     * @return The value with the given id, null if there is none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V getValue(int id)
+    {
+        final Object[] values = this.values;
+        if (values != null)
+            return id >= 0 && id < values.length ? (V)values[id] : null;
+        return this.sparseValues.get(id);
+    }
+
+    /**
+     * @return The id of the given value, -1 if it has none.
+     */
+    int getId(@Nullable V value)
+    {
+        return this.ids.getInt(value);
+    }
+}
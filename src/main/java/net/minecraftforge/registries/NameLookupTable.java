@@ -0,0 +1,78 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.util.Identifier;
+
+/**
+ * Read only, open addressing name to value table, built by {@link ForgeRegistry#bake()} once the names stop changing.
+ *
+ * Hashes are stored next to the keys so a probe only calls {@link Identifier#equals(Object)} on a real candidate, and
+ * the registry's own key instances are checked by identity first.
+ */
+final class NameLookupTable<V>
+{
+    private final Identifier[] keys;
+    private final int[] hashes;
+    private final Object[] values;
+    private final int mask;
+
+    NameLookupTable(Map<Identifier, V> entries)
+    {
+        int capacity = HashCommon.arraySize(Math.max(entries.size(), 1), 0.5f);
+        this.keys = new Identifier[capacity];
+        this.hashes = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        entries.forEach((key, value) ->
+        {
+            int hash = HashCommon.mix(key.hashCode());
+            int pos = hash & mask;
+            while (keys[pos] != null)
+                pos = (pos + 1) & mask;
+            keys[pos] = key;
+            hashes[pos] = hash;
+            values[pos] = value;
+        });
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V get(@Nullable Identifier key)
+    {
+        if (key == null)
+            return null;
+        int hash = HashCommon.mix(key.hashCode());
+        int pos = hash & mask;
+        Identifier candidate;
+        while ((candidate = keys[pos]) != null)
+        {
+            if (candidate == key || (hashes[pos] == hash && candidate.equals(key)))
+                return (V)values[pos];
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+}
@@ -19,6 +19,9 @@
 
 package net.minecraftforge.registries;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
@@ -33,13 +36,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 @SuppressWarnings("rawtypes")
-public class ObjectHolderRef implements Consumer<Predicate<Identifier>>
+public class ObjectHolderRef implements Consumer<Predicate<Identifier>>, Runnable
 {
     private static final Logger LOGGER  = LogManager.getLogger();
     private Field field;
     private Identifier injectedObject;
     private boolean isValid;
     private ForgeRegistry<?> registry;
+    private MethodHandle setter;
 
     public ObjectHolderRef(Field field, Identifier injectedObject)
     {
@@ -98,6 +102,16 @@ public class ObjectHolderRef implements Consumer<Predicate<Identifier>>
         {
             throw new RuntimeException("@ObjectHolder on final field, our transformer did not run? " + field.getDeclaringClass().getName() + "/" + field.getName());
         }
+
+        try
+        {
+            // Bound once, so each apply pass is a plain static field write rather than a reflective Field.set
+            this.setter = MethodHandles.lookup().unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class));
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to access @ObjectHolder field " + field.getDeclaringClass().getName() + "/" + field.getName(), e);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -130,12 +144,26 @@ public class ObjectHolderRef implements Consumer<Predicate<Identifier>>
         return isValid;
     }
 
+    @Nullable
+    Identifier getRegistryName()
+    {
+        return registry == null ? null : registry.getRegistryName();
+    }
+
     @Override
     public void accept(Predicate<Identifier> filter)
     {
         if (registry == null || !filter.test(registry.getRegistryName()))
             return;
+        run();
+    }
 
+    /**
+     * Looks up and sets the held object, without checking the registry filter.
+     */
+    @Override
+    public void run()
+    {
         Object thing;
         if (isValid && registry.containsKey(injectedObject) && !registry.isDummied(injectedObject))
         {
@@ -153,9 +181,13 @@ public class ObjectHolderRef implements Consumer<Predicate<Identifier>>
         }
         try
         {
-            field.set(null, thing);
+            setter.invokeExact(thing);
+        }
+        catch (Error e)
+        {
+            throw e;
         }
-        catch (IllegalArgumentException | ReflectiveOperationException e)
+        catch (Throwable e)
         {
             LOGGER.warn("Unable to set {} with value {} ({})", this.field, thing, this.injectedObject, e);
         }
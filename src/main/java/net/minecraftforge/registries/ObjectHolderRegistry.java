@@ -23,6 +23,8 @@ import java.lang.annotation.ElementType;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -60,7 +62,20 @@ public class ObjectHolderRegistry
      */
     public static void addHandler(Consumer<Predicate<Identifier>> ref)
     {
-        objectHolders.add(ref);
+        if (ref instanceof ObjectHolderRef && ((ObjectHolderRef)ref).getRegistryName() != null)
+            addHandler(((ObjectHolderRef)ref).getRegistryName(), (ObjectHolderRef)ref);
+        else
+            objectHolders.add(ref);
+    }
+
+    /**
+     * Registers a handler that only depends on a single registry. It is run whenever that registry's holders are
+     * applied, in the order the registry's handlers were added, and skipped entirely by passes for other registries.
+     * The same set semantics as {@link #addHandler(Consumer)} apply.
+     */
+    public static void addHandler(Identifier registryName, Runnable handler)
+    {
+        holdersByRegistry.computeIfAbsent(registryName, k -> new LinkedHashSet<>()).add(handler);
     }
 
     /**
@@ -74,15 +89,30 @@ public class ObjectHolderRegistry
      */
     public static boolean removeHandler(Consumer<Predicate<Identifier>> ref)
     {
+        if (ref instanceof ObjectHolderRef && ((ObjectHolderRef)ref).getRegistryName() != null)
+            return removeHandler(((ObjectHolderRef)ref).getRegistryName(), (ObjectHolderRef)ref);
         return objectHolders.remove(ref);
     }
 
+    /**
+     * Removes a handler registered through {@link #addHandler(Identifier, Runnable)}.
+     *
+     * @return true if handler was matched and removed.
+     */
+    public static boolean removeHandler(Identifier registryName, Runnable handler)
+    {
+        Set<Runnable> group = holdersByRegistry.get(registryName);
+        return group != null && group.remove(handler);
+    }
+
     //==============================================================
     // Everything below is internal, do not use.
     //==============================================================
 
     private static final Logger LOGGER = LogManager.getLogger();
     private static final Set<Consumer<Predicate<Identifier>>> objectHolders = new HashSet<>();
+    // Holders grouped by the registry they are filled from, so a pass for one registry only visits its own holders
+    private static final Map<Identifier, Set<Runnable>> holdersByRegistry = new LinkedHashMap<>();
     private static final Type OBJECT_HOLDER = Type.getType(ObjectHolder.class);
     private static final Type MOD = Type.getType(Mod.class);
 
@@ -107,7 +137,7 @@ public class ObjectHolderRegistry
 
         annotations.stream().filter(a -> OBJECT_HOLDER.equals(a.getAnnotationType())).filter(a -> a.getTargetType() == ElementType.FIELD)
         .forEach(data -> scanTarget(classModIds, classCache, data.getClassType(), data.getMemberName(), (String)data.getAnnotationData().get("value"), false, false));
-        LOGGER.debug(REGISTRIES,"Found {} ObjectHolder annotations", objectHolders.size());
+        LOGGER.debug(REGISTRIES,"Found {} ObjectHolder annotations across {} registries", holdersByRegistry.values().stream().mapToInt(Set::size).sum(), holdersByRegistry.size());
     }
 
     private static void scanTarget(Map<Type, String> classModIds, Map<Type, Class<?>> classCache, Type type, @Nullable String annotationTarget, String value, boolean isClass, boolean extractFromValue)
@@ -184,6 +214,11 @@ public class ObjectHolderRegistry
 
     public static void applyObjectHolders(Predicate<Identifier> filter)
     {
+        holdersByRegistry.forEach((registry, holders) ->
+        {
+            if (filter.test(registry))
+                holders.forEach(Runnable::run);
+        });
         objectHolders.forEach(e -> e.accept(filter));
     }
 
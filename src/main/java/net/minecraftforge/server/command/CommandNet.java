@@ -0,0 +1,123 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.server.command;
+
+import java.util.Comparator;
+import java.util.Map;
+
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import net.minecraft.command.argument.IdentifierArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.TranslatableText;
+import net.minecraft.util.Identifier;
+import net.minecraftforge.fml.network.NetworkMetrics;
+
+class CommandNet
+{
+    static ArgumentBuilder<ServerCommandSource, ?> register()
+    {
+        return CommandManager.literal("net")
+            .requires(cs->cs.hasPermissionLevel(2)) //permission
+            .then(CommandManager.literal("channel")
+                .then(CommandManager.argument("channel", IdentifierArgumentType.identifier())
+                    .executes(ctx -> sendMessages(ctx.getSource(), IdentifierArgumentType.getIdentifier(ctx, "channel")))
+                )
+            )
+            .then(CommandManager.literal("players")
+                .executes(ctx -> sendPlayers(ctx.getSource()))
+            )
+            .then(CommandManager.literal("reset")
+                .executes(ctx -> {
+                    NetworkMetrics.reset();
+                    ctx.getSource().sendFeedback(new TranslatableText("commands.forge.net.reset"), true);
+                    return 0;
+                })
+            )
+            .executes(ctx -> sendChannels(ctx.getSource()));
+    }
+
+    private static int sendChannels(ServerCommandSource source)
+    {
+        Map<Identifier, NetworkMetrics.ChannelStats> channels = NetworkMetrics.getChannelData();
+        if (channels.values().stream().allMatch(c -> c.getTotalBytes() == 0))
+        {
+            source.sendFeedback(new TranslatableText("commands.forge.net.no_data"), false);
+            return 0;
+        }
+
+        // Channels using the most bandwidth first
+        channels.values().stream()
+            .filter(c -> c.getTotalBytes() > 0)
+            .sorted(Comparator.comparingLong(NetworkMetrics.ChannelStats::getTotalBytes).reversed())
+            .limit(10)
+            .forEach(c -> source.sendFeedback(new TranslatableText("commands.forge.net.channel_entry",
+                c.getName(), c.getSentMessages(), formatBytes(c.getSentBytes()), c.getReceivedMessages(), formatBytes(c.getReceivedBytes())), false));
+        return 0;
+    }
+
+    private static int sendMessages(ServerCommandSource source, Identifier channel)
+    {
+        NetworkMetrics.ChannelStats stats = NetworkMetrics.getChannelData().get(channel);
+        Map<Integer, NetworkMetrics.MessageStats> messages = stats == null ? null : stats.getMessageData();
+        if (messages == null || messages.isEmpty())
+        {
+            source.sendFeedback(new TranslatableText("commands.forge.net.no_data"), false);
+            return 0;
+        }
+
+        messages.forEach((index, message) -> source.sendFeedback(new TranslatableText("commands.forge.net.message_entry",
+            index, message.getEncoded().getMessages(), formatBytes(message.getEncoded().getBytes()), formatNanos(message.getEncoded().getAverageNanos()),
+            message.getDecoded().getMessages(), formatBytes(message.getDecoded().getBytes()), formatNanos(message.getDecoded().getAverageNanos())), false));
+        return 0;
+    }
+
+    private static int sendPlayers(ServerCommandSource source)
+    {
+        Map<String, NetworkMetrics.Traffic> senders = NetworkMetrics.getSenderData();
+        if (senders.isEmpty())
+        {
+            source.sendFeedback(new TranslatableText("commands.forge.net.no_data"), false);
+            return 0;
+        }
+
+        senders.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, NetworkMetrics.Traffic> e) -> e.getValue().getBytes()).reversed())
+            .limit(10)
+            .forEach(e -> source.sendFeedback(new TranslatableText("commands.forge.net.player_entry",
+                e.getKey(), e.getValue().getMessages(), formatBytes(e.getValue().getBytes())), false));
+        return 0;
+    }
+
+    private static String formatBytes(long bytes)
+    {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format("%.1f KiB", bytes / 1024.0);
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String formatNanos(double nanos)
+    {
+        double micros = nanos / 1000;
+        return micros > 1000 ? String.format("%.2fms", micros / 1000) : String.format("%.2f\u03bcs", micros);
+    }
+}
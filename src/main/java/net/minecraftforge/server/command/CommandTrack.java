@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.command.CommandException;
@@ -35,6 +36,7 @@ import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import net.minecraft.text.TranslatableText;
 import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.server.timings.CapabilityTracker;
 import net.minecraftforge.server.timings.ForgeTimings;
 import net.minecraftforge.server.timings.TimeTracker;
 
@@ -49,6 +51,7 @@ class CommandTrack
             .then(ResetTrackingCommand.register())
             .then(TrackResultsEntity.register())
             .then(TrackResultsTileEntity.register())
+            .then(TrackResultsCapabilities.register())
             .then(StartTrackingCommand.register());
     }
 
@@ -79,6 +82,17 @@ class CommandTrack
                             return 0;
                         })
                     )
+                )
+                .then(CommandManager.literal("caps")
+                    .then(CommandManager.argument("duration", IntegerArgumentType.integer(1))
+                        .executes(ctx -> {
+                            int duration = IntegerArgumentType.getInteger(ctx, "duration");
+                            CapabilityTracker.reset();
+                            CapabilityTracker.enable(duration);
+                            ctx.getSource().sendFeedback(new TranslatableText("commands.forge.tracking.caps.enabled", duration), true);
+                            return 0;
+                        })
+                    )
                 );
         }
     }
@@ -102,6 +116,13 @@ class CommandTrack
                         ctx.getSource().sendFeedback(new TranslatableText("commands.forge.tracking.entity.reset"), true);
                         return 0;
                     })
+                )
+                .then(CommandManager.literal("caps")
+                    .executes(ctx -> {
+                        CapabilityTracker.reset();
+                        ctx.getSource().sendFeedback(new TranslatableText("commands.forge.tracking.caps.reset"), true);
+                        return 0;
+                    })
                 );
         }
     }
@@ -181,4 +202,38 @@ class CommandTrack
             );
         }
     }
+
+    private static class TrackResultsCapabilities
+    {
+        static ArgumentBuilder<ServerCommandSource, ?> register()
+        {
+            return CommandManager.literal("caps").executes(ctx -> {
+                ServerCommandSource source = ctx.getSource();
+                Map<String, CapabilityTracker.Stats> capabilities = CapabilityTracker.getCapabilityData();
+                Map<Class<?>, CapabilityTracker.Stats> providers = CapabilityTracker.getProviderData();
+                if (capabilities.isEmpty() && providers.isEmpty())
+                {
+                    source.sendFeedback(new TranslatableText("commands.forge.tracking.no_data"), true);
+                    return 0;
+                }
+
+                // Most queried capabilities first, then the providers that are slowest to answer
+                capabilities.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, CapabilityTracker.Stats> e) -> e.getValue().getCalls()).reversed())
+                    .limit(10)
+                    .forEach(e -> source.sendFeedback(new TranslatableText("commands.forge.tracking.caps.capability_entry",
+                        e.getKey(), e.getValue().getCalls(), e.getValue().getHits(), e.getValue().getMisses()), true));
+                providers.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<Class<?>, CapabilityTracker.Stats> e) -> e.getValue().getAverageNanos()).reversed())
+                    .limit(10)
+                    .forEach(e -> {
+                        double averageTimings = e.getValue().getAverageNanos() / 1000;
+                        String time = (averageTimings > 1000 ? TIME_FORMAT.format(averageTimings / 1000) : TIME_FORMAT.format(averageTimings)) + (averageTimings < 1000 ? "\u03bcs" : "ms");
+                        source.sendFeedback(new TranslatableText("commands.forge.tracking.caps.provider_entry",
+                            e.getKey().getName(), e.getValue().getCalls(), e.getValue().getHits(), time), true);
+                    });
+                return 0;
+            });
+        }
+    }
 }
@@ -36,6 +36,7 @@ public class ForgeCommand
             .then(CommandDimensions.register())
             .then(CommandSetDimension.register())
             .then(CommandModList.register())
+            .then(CommandNet.register())
         );
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.server.timings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.util.math.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.ICapabilityProvider;
+import net.minecraftforge.common.util.LazyOptional;
+
+/**
+ * Collects capability lookup statistics {calls, hits and misses per capability, and per provider class}
+ *
+ * While disabled the only cost to a lookup is a single field read. Provider timings are sampled
+ * on a fraction of the calls to keep the overhead low while enabled.
+ */
+public class CapabilityTracker
+{
+    private static final int SAMPLE_RATE = 16;
+
+    private static volatile boolean enabled;
+    private static volatile long endTime;
+    private static final Map<String, Stats> capabilities = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Stats> providers = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Starts recording lookups for the given duration in seconds
+     *
+     * @param duration The duration for the time to track
+     */
+    public static void enable(int duration)
+    {
+        endTime = System.nanoTime() + TimeUnit.NANOSECONDS.convert(duration, TimeUnit.SECONDS);
+        enabled = true;
+    }
+
+    /**
+     * Stops tracking and clears all data collected so far
+     */
+    public static void reset()
+    {
+        enabled = false;
+        capabilities.clear();
+        providers.clear();
+    }
+
+    /**
+     * @return A snapshot of the statistics per capability name
+     */
+    public static ImmutableMap<String, Stats> getCapabilityData()
+    {
+        return ImmutableMap.copyOf(capabilities);
+    }
+
+    /**
+     * @return A snapshot of the statistics per provider class
+     */
+    public static ImmutableMap<Class<?>, Stats> getProviderData()
+    {
+        return ImmutableMap.copyOf(providers);
+    }
+
+    /**
+     * Records the outcome of a full lookup on a capability holder
+     */
+    public static void recordLookup(@Nullable Capability<?> cap, boolean hit)
+    {
+        if (cap == null) // Not registered, nothing to tell apart
+            return;
+        capabilities.computeIfAbsent(cap.getName(), k -> new Stats()).record(hit, -1);
+        checkEnd(System.nanoTime());
+    }
+
+    /**
+     * Queries a single provider, recording the outcome and, for sampled calls, the time it took to answer
+     */
+    public static <T> LazyOptional<T> trackProvider(ICapabilityProvider provider, Capability<T> cap, @Nullable Direction side)
+    {
+        final Stats stats = providers.computeIfAbsent(provider.getClass(), k -> new Stats());
+        if (ThreadLocalRandom.current().nextInt(SAMPLE_RATE) != 0)
+        {
+            LazyOptional<T> ret = provider.getCapability(cap, side);
+            //noinspection ConstantConditions
+            stats.record(ret != null && ret.isPresent(), -1);
+            checkEnd(System.nanoTime());
+            return ret;
+        }
+
+        final long start = System.nanoTime();
+        LazyOptional<T> ret = provider.getCapability(cap, side);
+        final long end = System.nanoTime();
+        //noinspection ConstantConditions
+        stats.record(ret != null && ret.isPresent(), end - start);
+        checkEnd(end);
+        return ret;
+    }
+
+    private static void checkEnd(long now)
+    {
+        if (now > endTime)
+            enabled = false;
+    }
+
+    public static class Stats
+    {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        private void record(boolean hit, long nanos)
+        {
+            calls.increment();
+            if (hit)
+                hits.increment();
+            if (nanos >= 0)
+            {
+                samples.increment();
+                sampledNanos.add(nanos);
+            }
+        }
+
+        public long getCalls() { return calls.sum(); }
+        public long getHits() { return hits.sum(); }
+        public long getMisses() { return getCalls() - getHits(); }
+
+        /**
+         * @return The average time of the sampled calls in nanoseconds, 0 if none were sampled
+         */
+        public double getAverageNanos()
+        {
+            long count = samples.sum();
+            return count == 0 ? 0 : (double)sampledNanos.sum() / count;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.common.capabilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Direction;
+import net.minecraftforge.common.util.LazyOptional;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapabilityDispatcherTest
+{
+    private static final Capability<String> FIRST = new Capability<>("first", null, () -> "first", 0);
+    private static final Capability<String> SECOND = new Capability<>("second", null, () -> "second", 1);
+    private static final Capability<String> UNDECLARED = new Capability<>("undeclared", null, () -> "undeclared", 5);
+
+    private final List<String> visited = new ArrayList<>();
+
+    @Test
+    public void testDeclaredProvidersOnlyAskedForTheirCapabilities()
+    {
+        CapabilityDispatcher dispatcher = dispatcher(
+            new Declared("a", FIRST),
+            new Declared("b", SECOND)
+        );
+
+        assertEquals("a", dispatcher.getCapability(FIRST, null).orElse(null), "Declared provider should answer its capability");
+        assertEquals(Arrays.asList("a"), visited, "Provider that did not declare the capability should be skipped");
+
+        visited.clear();
+        assertEquals("b", dispatcher.getCapability(SECOND, null).orElse(null), "Declared provider should answer its capability");
+        assertEquals(Arrays.asList("b"), visited, "Provider that did not declare the capability should be skipped");
+    }
+
+    @Test
+    public void testUndeclaredProvidersKeepAttachOrder()
+    {
+        CapabilityDispatcher dispatcher = dispatcher(
+            new Undeclared("a"),
+            new Declared("b", SECOND),
+            new Undeclared("c")
+        );
+
+        assertFalse(dispatcher.getCapability(FIRST, null).isPresent(), "Nobody provides the first capability");
+        assertEquals(Arrays.asList("a", "c"), visited, "Only undeclared providers should be asked, in attach order");
+
+        visited.clear();
+        dispatcher.getCapability(SECOND, null);
+        assertEquals(Arrays.asList("a", "b"), visited, "Declared provider should keep its place between undeclared ones");
+    }
+
+    @Test
+    public void testIdsOutsideTheIndexFallBackToUndeclared()
+    {
+        CapabilityDispatcher dispatcher = dispatcher(
+            new Declared("a", FIRST),
+            new Undeclared("b")
+        );
+
+        assertFalse(dispatcher.getCapability(UNDECLARED, null).isPresent(), "Nobody provides the capability");
+        assertEquals(Arrays.asList("b"), visited, "Ids past the index should only ask undeclared providers");
+    }
+
+    @Test
+    public void testNullCapabilityIsEmpty()
+    {
+        CapabilityDispatcher dispatcher = dispatcher(
+            new Declared("a", FIRST),
+            new Undeclared("b")
+        );
+
+        assertFalse(dispatcher.getCapability(null, null).isPresent(), "Un-injected capabilities should never be present");
+        assertTrue(visited.isEmpty(), "Un-injected capabilities should not reach any provider");
+    }
+
+    private CapabilityDispatcher dispatcher(ICapabilityProvider... providers)
+    {
+        Map<Identifier, ICapabilityProvider> map = new LinkedHashMap<>();
+        for (int x = 0; x < providers.length; x++)
+            map.put(new Identifier("test", "provider_" + x), providers[x]);
+        return new CapabilityDispatcher(map, new ArrayList<>());
+    }
+
+    private class Undeclared implements ICapabilityProvider
+    {
+        private final String name;
+
+        Undeclared(String name)
+        {
+            this.name = name;
+        }
+
+        @Nonnull
+        @Override
+        public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side)
+        {
+            visited.add(name);
+            return LazyOptional.empty();
+        }
+    }
+
+    private class Declared implements IDeclaredCapabilityProvider
+    {
+        private final String name;
+        private final Capability<String> cap;
+
+        Declared(String name, Capability<String> cap)
+        {
+            this.name = name;
+            this.cap = cap;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<Capability<?>> getDeclaredCapabilities()
+        {
+            return Arrays.asList(cap);
+        }
+
+        @Nonnull
+        @Override
+        public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side)
+        {
+            visited.add(name);
+            return this.cap.orEmpty(cap, LazyOptional.of(() -> name));
+        }
+    }
+}
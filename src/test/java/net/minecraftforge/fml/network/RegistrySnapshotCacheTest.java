@@ -0,0 +1,66 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistrySnapshotCacheTest
+{
+    @Test
+    public void testReadablePaths()
+    {
+        assertEquals("minecraft/block.dat", RegistrySnapshotCache.relativePath(new Identifier("minecraft", "block")), "Plain names should map to namespace and path");
+        assertEquals("minecraft/worldgen/biome.dat", RegistrySnapshotCache.relativePath(new Identifier("minecraft", "worldgen/biome")), "Path segments should become directories");
+    }
+
+    @Test
+    public void testNoCollisions()
+    {
+        List<Identifier> names = Arrays.asList(
+            new Identifier("a", "b/c"),
+            new Identifier("a", "b.c"),
+            new Identifier("a.b", "c"),
+            new Identifier("a", "b//c"),
+            new Identifier("a", "b/c/"),
+            new Identifier("a", "b/c.dat"),
+            new Identifier("a", "b/c.dat/d")
+        );
+        Set<String> paths = new HashSet<>();
+        names.forEach(name -> assertTrue(paths.add(RegistrySnapshotCache.relativePath(name)), "Registry " + name + " should have a file of its own"));
+    }
+
+    @Test
+    public void testStaysInsideCache()
+    {
+        for (String path : Arrays.asList("..", "../c", "a/../../c", ".", "./c"))
+        {
+            String relative = RegistrySnapshotCache.relativePath(new Identifier("a", path));
+            for (String segment : relative.split("/"))
+                assertFalse(segment.equals(".") || segment.equals(".."), "Registry a:" + path + " should not map to a relative directory, got " + relative);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network.simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.minecraft.network.ClientConnection;
+import net.minecraft.network.NetworkSide;
+import net.minecraftforge.fml.LogicalSide;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageQueueTest
+{
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+
+    private ClientConnection connect()
+    {
+        ClientConnection connection = new ClientConnection(NetworkSide.SERVERBOUND);
+        channels.add(new EmbeddedChannel(connection));
+        return connection;
+    }
+
+    @AfterEach
+    public void disconnect()
+    {
+        channels.forEach(EmbeddedChannel::close);
+        // Closed connections are forgotten on the next drain
+        MessageQueue.drainAll(LogicalSide.SERVER);
+    }
+
+    @Test
+    public void testOrdering()
+    {
+        MessageQueue first = MessageQueue.of(connect(), LogicalSide.SERVER);
+        MessageQueue second = MessageQueue.of(connect(), LogicalSide.SERVER);
+        List<String> handled = new ArrayList<>();
+        for (int x = 0; x < 3; x++)
+        {
+            String index = String.valueOf(x);
+            first.add(() -> handled.add("a" + index));
+            second.add(() -> handled.add("b" + index));
+        }
+
+        MessageQueue.drainAll(LogicalSide.CLIENT);
+        assertTrue(handled.isEmpty(), "Draining the other side should not handle anything");
+
+        MessageQueue.drainAll(LogicalSide.SERVER);
+        assertEquals(Arrays.asList("a0", "b0", "a1", "b1", "a2", "b2"), handled, "Messages should be handled in arrival order, one connection at a time");
+    }
+
+    @Test
+    public void testBudget()
+    {
+        MessageQueue queue = MessageQueue.of(connect(), LogicalSide.SERVER);
+        AtomicInteger handled = new AtomicInteger();
+        for (int x = 0; x < 3; x++)
+        {
+            queue.add(() ->
+            {
+                handled.incrementAndGet();
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        MessageQueue.drainAll(LogicalSide.SERVER);
+        assertEquals(1, handled.get(), "A drain should stop once the tick's budget is spent");
+        MessageQueue.drainAll(LogicalSide.SERVER);
+        MessageQueue.drainAll(LogicalSide.SERVER);
+        assertEquals(3, handled.get(), "Later drains should pick up where the last one stopped");
+    }
+
+    @Test
+    public void testPauseAndResume()
+    {
+        ClientConnection connection = connect();
+        EmbeddedChannel channel = channels.get(0);
+        MessageQueue queue = MessageQueue.of(connection, LogicalSide.SERVER);
+        for (int x = 0; x < MessageQueue.CAPACITY - 1; x++)
+            queue.add(() -> {});
+        assertTrue(channel.config().isAutoRead(), "A queue below its capacity should keep reading");
+
+        queue.add(() -> {});
+        assertFalse(channel.config().isAutoRead(), "A full queue should stop reading from the network");
+
+        for (int x = 0; x < 100 && !channel.config().isAutoRead(); x++)
+        {
+            MessageQueue.drainAll(LogicalSide.SERVER);
+            channel.runPendingTasks();
+        }
+        assertTrue(channel.config().isAutoRead(), "A drained queue should resume reading from the network");
+    }
+
+    @Test
+    public void testHandlerFailureDisconnects()
+    {
+        ClientConnection connection = connect();
+        EmbeddedChannel channel = channels.get(0);
+        MessageQueue queue = MessageQueue.of(connection, LogicalSide.SERVER);
+        AtomicInteger handled = new AtomicInteger();
+        queue.add(() -> { throw new IllegalStateException("Broken handler"); });
+        queue.add(handled::incrementAndGet);
+
+        MessageQueue.drainAll(LogicalSide.SERVER);
+        channel.runPendingTasks();
+        assertEquals(0, handled.get(), "Messages queued after a failure should be dropped");
+        assertFalse(connection.isOpen(), "A failing handler should disconnect the connection");
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.fml.network.simple;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageSplitterTest
+{
+    private static final int LIMIT = 1000;
+
+    private final MessageSplitter splitter = new MessageSplitter(new Identifier("test", "channel"), 64 * 1024);
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final AtomicInteger disconnects = new AtomicInteger();
+
+    private static PacketByteBuf createMessage(int length, int seed)
+    {
+        PacketByteBuf message = new PacketByteBuf(Unpooled.buffer(length));
+        for (int x = 0; x < length; x++)
+            message.writeByte(x * 31 + seed);
+        return message;
+    }
+
+    private PacketByteBuf receive(PacketByteBuf fragment)
+    {
+        assertEquals(IndexedMessageCodec.SPLIT_INDEX, fragment.readUnsignedByte(), "Fragments should start with the split discriminator");
+        return splitter.receive(fragment, channel, disconnects::incrementAndGet);
+    }
+
+    private void assertSameMessage(PacketByteBuf expected, PacketByteBuf actual)
+    {
+        assertNotNull(actual, "The message should be complete after its last fragment");
+        assertTrue(ByteBufUtil.equals(expected, actual), "The reassembled message should match the original");
+        actual.release();
+    }
+
+    @Test
+    public void testSmallMessage()
+    {
+        PacketByteBuf message = createMessage(LIMIT, 0);
+        List<PacketByteBuf> fragments = splitter.split(message, LIMIT);
+
+        assertEquals(1, fragments.size(), "Messages that fit one payload should not be split");
+        assertSame(message, fragments.get(0), "Messages that fit one payload should be sent as they are");
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        PacketByteBuf message = createMessage(LIMIT * 5 + 17, 0);
+        List<PacketByteBuf> fragments = splitter.split(message, LIMIT);
+
+        assertTrue(fragments.size() > 5, "A message over five payloads long should be split into more than five fragments");
+        fragments.forEach(fragment -> assertTrue(fragment.readableBytes() <= LIMIT, "Every fragment should fit one payload"));
+        for (int x = 0; x < fragments.size() - 1; x++)
+            assertNull(receive(fragments.get(x)), "The message should not be complete before its last fragment");
+        assertSameMessage(message, receive(fragments.get(fragments.size() - 1)));
+        assertEquals(0, disconnects.get(), "A valid message should not disconnect");
+    }
+
+    @Test
+    public void testInterleavedMessages()
+    {
+        PacketByteBuf first = createMessage(LIMIT * 3, 1);
+        PacketByteBuf second = createMessage(LIMIT * 2, 2);
+        List<PacketByteBuf> firstFragments = splitter.split(first, LIMIT);
+        List<PacketByteBuf> secondFragments = splitter.split(second, LIMIT);
+
+        PacketByteBuf firstResult = null;
+        PacketByteBuf secondResult = null;
+        for (int x = 0; x < Math.max(firstFragments.size(), secondFragments.size()); x++)
+        {
+            if (x < firstFragments.size())
+                firstResult = receive(firstFragments.get(x));
+            if (x < secondFragments.size())
+                secondResult = receive(secondFragments.get(x));
+        }
+        assertSameMessage(first, firstResult);
+        assertSameMessage(second, secondResult);
+        assertEquals(0, disconnects.get(), "Interleaved messages should not disconnect");
+    }
+
+    @Test
+    public void testOutOfOrderFragment()
+    {
+        List<PacketByteBuf> fragments = splitter.split(createMessage(LIMIT * 3, 0), LIMIT);
+
+        assertNull(receive(fragments.get(0)), "The message should not be complete after its first fragment");
+        assertNull(receive(fragments.get(2)), "A skipped fragment should not complete the message");
+        assertEquals(1, disconnects.get(), "A skipped fragment should disconnect");
+
+        // The failed state is dropped, so a later message starts from scratch
+        PacketByteBuf message = createMessage(LIMIT * 2, 3);
+        List<PacketByteBuf> next = splitter.split(message, LIMIT);
+        PacketByteBuf result = null;
+        for (PacketByteBuf fragment : next)
+            result = receive(fragment);
+        assertSameMessage(message, result);
+        assertEquals(1, disconnects.get(), "The later message should not disconnect again");
+    }
+
+    @Test
+    public void testOversizedMessage()
+    {
+        assertThrows(IllegalArgumentException.class, () -> splitter.split(createMessage(64 * 1024 + 1, 0), LIMIT), "Messages above the reassembly limit should not be sent");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdLookupTableTest
+{
+    @Test
+    public void testDenseIds()
+    {
+        Map<Integer, Object> entries = new HashMap<>();
+        Object[] values = new Object[10];
+        for (int id = 0; id < values.length; id++)
+        {
+            if (id == 4)
+                continue; // Leave a hole, like a removed entry
+            values[id] = new Object();
+            entries.put(id, values[id]);
+        }
+        IdLookupTable<Object> table = new IdLookupTable<>(entries);
+
+        for (int id = 0; id < values.length; id++)
+        {
+            assertSame(values[id], table.getValue(id), "Every baked id should map to its value");
+            if (values[id] != null)
+                assertEquals(id, table.getId(values[id]), "Every baked value should map to its id");
+        }
+        assertNull(table.getValue(-1), "Negative ids should have no value");
+        assertNull(table.getValue(values.length), "Ids past the last one should have no value");
+    }
+
+    @Test
+    public void testSparseIds()
+    {
+        Map<Integer, Object> entries = new HashMap<>();
+        Object low = new Object();
+        Object high = new Object();
+        Object negative = new Object();
+        entries.put(0, low);
+        entries.put(1_000_000, high);
+        entries.put(-5, negative);
+        IdLookupTable<Object> table = new IdLookupTable<>(entries);
+
+        assertSame(low, table.getValue(0), "Sparse tables should still find every id");
+        assertSame(high, table.getValue(1_000_000), "Sparse tables should still find every id");
+        assertSame(negative, table.getValue(-5), "Sparse tables should still find negative ids");
+        assertNull(table.getValue(1), "Sparse tables should have no value for unused ids");
+        assertEquals(1_000_000, table.getId(high), "Sparse tables should still map values to ids");
+        assertEquals(-5, table.getId(negative), "Sparse tables should still map values to ids");
+    }
+
+    @Test
+    public void testValuesMatchedByIdentity()
+    {
+        Map<Integer, String> entries = new HashMap<>();
+        String value = new String("value");
+        entries.put(3, value);
+        IdLookupTable<String> table = new IdLookupTable<>(entries);
+
+        assertEquals(3, table.getId(value), "The registered instance should have its id");
+        assertEquals(-1, table.getId(new String("value")), "An equal but different instance isn't registered");
+        assertEquals(-1, table.getId(null), "Null should have no id");
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        IdLookupTable<Object> table = new IdLookupTable<>(new HashMap<>());
+
+        assertNull(table.getValue(0), "Empty tables should have no values");
+        assertEquals(-1, table.getId(new Object()), "Empty tables should have no ids");
+    }
+}
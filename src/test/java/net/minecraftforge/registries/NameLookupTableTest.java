@@ -0,0 +1,63 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameLookupTableTest
+{
+    @Test
+    public void testLookup()
+    {
+        Map<Identifier, Integer> entries = new HashMap<>();
+        for (int x = 0; x < 100; x++)
+            entries.put(new Identifier("test", "entry_" + x), x);
+        NameLookupTable<Integer> table = new NameLookupTable<>(entries);
+
+        entries.forEach((key, value) -> assertEquals(value, table.get(key), "Every baked name should map to its value"));
+        for (int x = 0; x < 100; x++)
+            assertEquals(x, (int)table.get(new Identifier("test", "entry_" + x)), "Equal names should be found, not only the baked instances");
+        assertNull(table.get(new Identifier("test", "missing")), "Unknown names should have no value");
+    }
+
+    @Test
+    public void testNullKey()
+    {
+        Map<Identifier, Integer> entries = new HashMap<>();
+        entries.put(new Identifier("test", "entry"), 1);
+        NameLookupTable<Integer> table = new NameLookupTable<>(entries);
+
+        assertNull(table.get(null), "Null names, such as a failed Identifier.tryParse, should have no value");
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        NameLookupTable<Integer> table = new NameLookupTable<>(new HashMap<>());
+
+        assertNull(table.get(new Identifier("test", "entry")), "Empty tables should have no values");
+        assertNull(table.get(null), "Empty tables should have no values");
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.registries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjectHolderRegistryTest
+{
+    private static final Identifier BLOCKS = new Identifier("test", "blocks");
+    private static final Identifier ITEMS = new Identifier("test", "items");
+
+    private final List<String> ran = new ArrayList<>();
+    private final List<Handler> registered = new ArrayList<>();
+
+    @AfterEach
+    public void removeHandlers()
+    {
+        for (Handler handler : registered)
+        {
+            if (handler.registry == null)
+                assertTrue(ObjectHolderRegistry.removeHandler(handler), "Generic handler should be removable");
+            else
+                assertTrue(ObjectHolderRegistry.removeHandler(handler.registry, handler), "Registry handler should be removable");
+        }
+    }
+
+    @Test
+    public void testFilteredPassOnlyRunsMatchingRegistry()
+    {
+        register(new Handler("block", 1, BLOCKS));
+        register(new Handler("item", 2, ITEMS));
+
+        ObjectHolderRegistry.applyObjectHolders(BLOCKS::equals);
+        assertEquals(Arrays.asList("block"), ran, "Only handlers of the filtered registry should run");
+
+        ran.clear();
+        ObjectHolderRegistry.applyObjectHolders();
+        assertEquals(new HashSet<>(Arrays.asList("block", "item")), new HashSet<>(ran), "A full pass should run every handler");
+    }
+
+    @Test
+    public void testFilterTestedOncePerRegistry()
+    {
+        for (int x = 0; x < 10; x++)
+            register(new Handler("block" + x, 100 + x, BLOCKS));
+        register(new Handler("item", 200, ITEMS));
+
+        AtomicInteger tests = new AtomicInteger();
+        ObjectHolderRegistry.applyObjectHolders(name ->
+        {
+            if (BLOCKS.equals(name) || ITEMS.equals(name))
+                tests.incrementAndGet();
+            return BLOCKS.equals(name);
+        });
+        assertEquals(2, tests.get(), "The filter should be tested once per registry, not once per handler");
+        assertEquals(10, ran.size(), "Every handler of the filtered registry should run");
+    }
+
+    @Test
+    public void testGenericHandlersReceiveFilter()
+    {
+        Handler generic = register(new Handler("generic", 300, null));
+
+        ObjectHolderRegistry.applyObjectHolders(ITEMS::equals);
+        assertEquals(Arrays.asList("generic"), ran, "Generic handlers should run on every pass");
+        assertTrue(generic.lastFilter.test(ITEMS), "Generic handlers should receive the pass filter");
+        assertFalse(generic.lastFilter.test(BLOCKS), "Generic handlers should receive the pass filter");
+    }
+
+    @Test
+    public void testRegistryHandlersRunInRegistrationOrder()
+    {
+        // Hash codes run against the registration order, so a plain hash set would reorder these
+        for (int x = 0; x < 10; x++)
+            register(new Handler("block" + x, 500 - x, BLOCKS));
+
+        ObjectHolderRegistry.applyObjectHolders(BLOCKS::equals);
+        List<String> expected = new ArrayList<>();
+        for (int x = 0; x < 10; x++)
+            expected.add("block" + x);
+        assertEquals(expected, ran, "Handlers of one registry should run in the order they were added");
+    }
+
+    @Test
+    public void testRegistryHandlersRunBeforeGenericHandlers()
+    {
+        register(new Handler("generic", 600, null));
+        register(new Handler("block", 601, BLOCKS));
+
+        ObjectHolderRegistry.applyObjectHolders();
+        assertEquals(Arrays.asList("block", "generic"), ran, "Registry groups should be applied before generic handlers");
+    }
+
+    private Handler register(Handler handler)
+    {
+        if (handler.registry == null)
+            ObjectHolderRegistry.addHandler(handler);
+        else
+            ObjectHolderRegistry.addHandler(handler.registry, handler);
+        registered.add(handler);
+        return handler;
+    }
+
+    private class Handler implements Runnable, Consumer<Predicate<Identifier>>
+    {
+        private final String name;
+        private final int hash;
+        private final Identifier registry;
+        private Predicate<Identifier> lastFilter;
+
+        Handler(String name, int hash, Identifier registry)
+        {
+            this.name = name;
+            this.hash = hash;
+            this.registry = registry;
+        }
+
+        @Override
+        public void run()
+        {
+            ran.add(name);
+        }
+
+        @Override
+        public void accept(Predicate<Identifier> filter)
+        {
+            lastFilter = filter;
+            ran.add(name);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Handler && ((Handler)other).name.equals(name);
+        }
+    }
+}
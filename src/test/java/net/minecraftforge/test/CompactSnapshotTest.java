@@ -0,0 +1,113 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.test;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+import net.minecraftforge.registries.ForgeRegistry.Snapshot;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactSnapshotTest
+{
+    private static Snapshot createSnapshot()
+    {
+        Snapshot snapshot = new Snapshot();
+        // Two runs of contiguous ids with a gap, across several namespaces
+        for (int x = 0; x < 50; x++)
+            snapshot.ids.put(new Identifier("minecraft", "entry_" + x), x);
+        for (int x = 0; x < 10; x++)
+            snapshot.ids.put(new Identifier("testmod", "entry_" + x), 100 + x);
+        snapshot.ids.put(new Identifier("othermod", "single"), 4000);
+        snapshot.aliases.put(new Identifier("testmod", "old_name"), new Identifier("testmod", "entry_0"));
+        snapshot.overrides.put(new Identifier("minecraft", "entry_3"), "testmod");
+        snapshot.blocked.add(60);
+        snapshot.blocked.add(61);
+        snapshot.blocked.add(300);
+        snapshot.dummied.add(new Identifier("removedmod", "gone"));
+        return snapshot;
+    }
+
+    private static void assertSameSnapshot(Snapshot expected, Snapshot actual)
+    {
+        assertEquals(expected.ids, actual.ids, "Ids should survive the round trip");
+        assertEquals(expected.aliases, actual.aliases, "Aliases should survive the round trip");
+        assertEquals(expected.overrides, actual.overrides, "Overrides should survive the round trip");
+        assertEquals(expected.blocked, actual.blocked, "Blocked ids should survive the round trip");
+        assertEquals(expected.dummied, actual.dummied, "Dummied names should survive the round trip");
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        Snapshot snapshot = createSnapshot();
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        snapshot.writeCompact(buf, -1);
+
+        assertSameSnapshot(snapshot, Snapshot.readCompact(buf));
+        assertEquals(0, buf.readableBytes(), "The whole snapshot should be consumed");
+    }
+
+    @Test
+    public void testDeflatedRoundTrip()
+    {
+        Snapshot snapshot = createSnapshot();
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        snapshot.writeCompact(buf, 0);
+
+        assertTrue(buf.getBoolean(buf.readerIndex()), "A threshold of 0 should always deflate");
+        assertSameSnapshot(snapshot, Snapshot.readCompact(buf));
+        assertEquals(0, buf.readableBytes(), "The whole snapshot should be consumed");
+    }
+
+    @Test
+    public void testEmptyRoundTrip()
+    {
+        Snapshot snapshot = new Snapshot();
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        snapshot.writeCompact(buf, -1);
+
+        assertSameSnapshot(snapshot, Snapshot.readCompact(buf));
+    }
+
+    @Test
+    public void testRepeatedWrites()
+    {
+        // The encoded form is cached, writing it must not consume the cache
+        Snapshot snapshot = createSnapshot();
+        PacketByteBuf first = new PacketByteBuf(Unpooled.buffer());
+        PacketByteBuf second = new PacketByteBuf(Unpooled.buffer());
+        snapshot.writeCompact(first, -1);
+        snapshot.writeCompact(second, -1);
+
+        assertEquals(first, second, "Writing twice should produce the same bytes");
+    }
+
+    @Test
+    public void testLegacyNbtByDefault()
+    {
+        CompoundTag tag = createSnapshot().write();
+
+        assertFalse(tag.contains("compact"), "Saves should use the legacy format unless the compact one is requested");
+        assertSameSnapshot(createSnapshot(), Snapshot.read(tag));
+    }
+}
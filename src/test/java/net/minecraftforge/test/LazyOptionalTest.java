@@ -0,0 +1,107 @@
+/*
+ * Minecraft Forge
+ * Copyright (c) 2016-2020.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation version 2.1
+ * of the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.minecraftforge.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraftforge.common.util.LazyOptional;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyOptionalTest
+{
+    @Test
+    public void testSupplierResolvedOnce()
+    {
+        AtomicInteger calls = new AtomicInteger();
+        LazyOptional<String> optional = LazyOptional.of(() -> "value" + calls.incrementAndGet());
+
+        assertEquals(0, calls.get(), "Creating the optional shouldn't resolve it");
+        assertTrue(optional.isPresent(), "Optional with a supplier should be present");
+        assertEquals(0, calls.get(), "Checking presence shouldn't resolve it");
+        assertEquals("value1", optional.orElse(null), "First resolve should call the supplier");
+        assertEquals("value1", optional.orElse(null), "Later resolves should return the first value");
+        assertEquals(1, calls.get(), "Supplier should only be called once");
+    }
+
+    @Test
+    public void testLazyMapDoesNotResolve()
+    {
+        AtomicInteger calls = new AtomicInteger();
+        LazyOptional<String> optional = LazyOptional.of(() -> "value" + calls.incrementAndGet());
+        LazyOptional<Integer> mapped = optional.lazyMap(String::length);
+
+        assertEquals(0, calls.get(), "Lazy mapping shouldn't resolve the source");
+        assertEquals(6, (int)mapped.orElse(-1), "Mapped optional should resolve through the source");
+        assertEquals("value1", optional.orElse(null), "Source should keep the value resolved for the mapping");
+        assertEquals(1, calls.get(), "Supplier should only be called once");
+    }
+
+    @Test
+    public void testNullSupplierResultAskedOnce()
+    {
+        AtomicInteger calls = new AtomicInteger();
+        LazyOptional<String> optional = LazyOptional.of(() -> {
+            calls.incrementAndGet();
+            return null;
+        });
+
+        assertEquals("other", optional.orElse("other"), "Supplier returning null should resolve to the fallback");
+        assertEquals("other", optional.orElse("other"), "Supplier returning null should resolve to the fallback");
+        assertEquals(1, calls.get(), "Supplier returning null should not be asked again");
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        LazyOptional<String> empty = LazyOptional.empty();
+
+        assertFalse(empty.isPresent(), "Empty optional shouldn't be present");
+        assertSame(empty, LazyOptional.of(null), "Optional without a supplier should be the empty instance");
+        assertEquals("other", empty.orElse("other"), "Empty optional should resolve to the fallback");
+
+        AtomicInteger notified = new AtomicInteger();
+        empty.addListener(o -> notified.incrementAndGet());
+        assertEquals(1, notified.get(), "Listeners on an empty optional should be called immediately");
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        LazyOptional<String> optional = LazyOptional.of(() -> "value");
+        assertEquals("value", optional.orElse(null), "Valid optional should resolve");
+
+        AtomicInteger notified = new AtomicInteger();
+        optional.addListener(o -> notified.incrementAndGet());
+        optional.addListener(o -> assertSame(optional, o, "Listeners should be passed the invalidated optional"));
+        assertEquals(0, notified.get(), "Listeners shouldn't be called before invalidation");
+
+        optional.invalidate();
+        assertEquals(1, notified.get(), "Invalidation should notify listeners");
+        assertFalse(optional.isPresent(), "Invalidated optional shouldn't be present");
+        assertEquals("other", optional.orElse("other"), "Invalidated optional should resolve to the fallback, even if resolved before");
+
+        optional.invalidate();
+        assertEquals(1, notified.get(), "Listeners should only be notified once");
+
+        optional.addListener(o -> notified.incrementAndGet());
+        assertEquals(2, notified.get(), "Listeners added after invalidation should be called immediately");
+    }
+}